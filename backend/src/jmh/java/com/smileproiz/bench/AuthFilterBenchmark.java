@@ -0,0 +1,51 @@
+package com.smileproiz.bench;
+
+import com.smileproiz.security.JwtAuthFilter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthFilter целиком: заголовок -> разбор (или кэш) -> версия токенов -> SecurityContext.
+ * cacheSize=0 — каждый запрос с полным разбором HS256.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthFilterBenchmark {
+
+    @Param({"10000", "0"})
+    public int cacheSize;
+
+    private JwtAuthFilter filter;
+    private String authorization;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        var jwt = SecurityFixtures.jwtService(cacheSize);
+        filter = new JwtAuthFilter(SecurityFixtures.tokenAuthenticator(jwt));
+        authorization = "Bearer " + jwt.generateToken(SecurityFixtures.USER_ID, SecurityFixtures.EMAIL, "user", 0);
+    }
+
+    @Benchmark
+    public int authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart/all");
+        request.setServletPath("/api/cart/all");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+            return response.getStatus();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.smileproiz.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt при стоимости из app.security.bcrypt.strength (по умолчанию 10); другую — -p strength=12.
+ * Одна проверка пароля = один вход: время × число входов в секунду = занятые ядра.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BcryptBenchmark {
+
+    @Param({"10"})
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode("secret1");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("secret1", hash);
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("secret1");
+    }
+}
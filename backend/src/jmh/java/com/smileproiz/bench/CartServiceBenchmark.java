@@ -0,0 +1,82 @@
+package com.smileproiz.bench;
+
+import com.smileproiz.Application;
+import com.smileproiz.model.Product;
+import com.smileproiz.model.User;
+import com.smileproiz.repository.ProductRepository;
+import com.smileproiz.repository.UserRepository;
+import com.smileproiz.security.AuthenticatedUser;
+import com.smileproiz.service.CartService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CartService на встроенной H2 (профиль test): весь путь сервис -> JPA/JDBC -> БД без HTTP.
+ * В корзине CART_LINES строк; addSameItem — повторное добавление (upsert количества),
+ * getAllItems — просмотр корзины одним запросом.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CartServiceBenchmark {
+
+    private static final int CART_LINES = 20;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private Long productId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .profiles("test")
+                // обычный веб-контекст (ему нужна конфигурация безопасности), но на случайном порту и без actuator;
+                // аргументами, а не .properties(): те ниже application.properties по приоритету
+                .run("--server.port=0", "--management.server.port=-1", "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN", "--app.sql.stats.enabled=false");
+        cartService = context.getBean(CartService.class);
+
+        User user = context.getBean(UserRepository.class).save(new User("bench-cart@smileproiz.local", "x", "bench", "user"));
+        var principal = new AuthenticatedUser(user.getId(), user.getEmail(), "user");
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                principal, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+
+        ProductRepository products = context.getBean(ProductRepository.class);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < CART_LINES; i++) {
+            ids.add(products.save(new Product("BENCH TEE " + i, 1000 + i, null, "clothes",
+                    null, null, null, true, "M", null, null, "Black")).getId());
+        }
+        for (Long id : ids) {
+            cartService.addItem(id, null, "M", "Black", 1);
+        }
+        productId = ids.get(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public Object addSameItem() {
+        return cartService.addItem(productId, null, "M", "Black", 1);
+    }
+
+    @Benchmark
+    public Object getAllItems() {
+        return cartService.getAllItems();
+    }
+}
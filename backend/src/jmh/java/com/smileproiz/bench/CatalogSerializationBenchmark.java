@@ -0,0 +1,75 @@
+package com.smileproiz.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smileproiz.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Список товаров в формате ответа GET /api/products: JSON, Smile или CBOR (по Accept),
+ * с gzip и без (serializeGzip — как server.compression в Tomcat).
+ * Пишется в «никуда» — меряется только сериализация, без сети. Размер ответа печатается в @Setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class CatalogSerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = switch (format) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        products = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Product p = new Product("Товар " + i, 1000 + (i % 500) * 100, "https://cdn.smileproiz.local/p/" + i + ".jpg",
+                    i % 3 == 0 ? "accessories" : "clothes", i % 3 == 0 ? "Описание товара " + i : null,
+                    i % 2 == 0 ? "cotton" : null, i % 10 == 0 ? "new" : null,
+                    i % 7 != 0, "S,M,L,XL", null, null, "Black,White");
+            ReflectionTestUtils.setField(p, "id", (long) i);
+            p.setSku("SKU-" + i);
+            products.add(p);
+        }
+
+        byte[] raw = objectMapper.writeValueAsBytes(products);
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(zipped)) {
+            gzip.write(raw);
+        }
+        System.out.printf("%n# payload %s x %d: %,d bytes, gzip %,d bytes%n", format, size, raw.length, zipped.size());
+    }
+
+    @Benchmark
+    public void serialize() throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), products);
+    }
+
+    @Benchmark
+    public void serializeGzip() throws Exception {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(OutputStream.nullOutputStream(), 8192)) {
+            objectMapper.writeValue(gzip, products);
+        }
+    }
+}
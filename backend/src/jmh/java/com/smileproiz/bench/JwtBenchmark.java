@@ -0,0 +1,53 @@
+package com.smileproiz.bench;
+
+import com.smileproiz.security.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выпуск и проверка JWT: verifyCached — повторный токен из кэша claims (обычный случай),
+ * verifyUncached — полный разбор HS256 (кэш выключен), verifyInvalid — токен с чужой подписью.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private JwtService cached;
+    private JwtService uncached;
+    private String token;
+    private String forged;
+
+    @Setup
+    public void setUp() {
+        cached = SecurityFixtures.jwtService(10_000);
+        uncached = SecurityFixtures.jwtService(0);
+        token = cached.generateToken(SecurityFixtures.USER_ID, SecurityFixtures.EMAIL, "user", 0);
+        forged = token.substring(0, token.lastIndexOf('.') + 1) + "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+        cached.verify(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken(SecurityFixtures.USER_ID, SecurityFixtures.EMAIL, "user", 0);
+    }
+
+    @Benchmark
+    public Object verifyCached() {
+        return cached.verify(token);
+    }
+
+    @Benchmark
+    public Object verifyUncached() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public Object verifyInvalid() {
+        return uncached.verify(forged);
+    }
+}
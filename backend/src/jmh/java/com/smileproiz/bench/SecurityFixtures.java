@@ -0,0 +1,56 @@
+package com.smileproiz.bench;
+
+import com.smileproiz.model.User;
+import com.smileproiz.repository.UserRepository;
+import com.smileproiz.security.JwtService;
+import com.smileproiz.security.TokenAuthenticator;
+import com.smileproiz.security.TokenVersionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+
+// Сервисы безопасности без Spring-контекста, с теми же настройками, что в application.properties
+final class SecurityFixtures {
+
+    static final String SECRET = "SMILEPROIZ_SUPER_SECRET_KEY_CHANGE_ME_32+_CHARS_LONG";
+    static final long USER_ID = 42L;
+    static final String EMAIL = "bench@smileproiz.local";
+
+    private SecurityFixtures() {}
+
+    static JwtService jwtService(int claimsCacheSize) {
+        JwtService jwt = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwt, "secret", SECRET);
+        ReflectionTestUtils.setField(jwt, "expMs", 604_800_000L);
+        ReflectionTestUtils.setField(jwt, "claimsCacheMaxSize", claimsCacheSize);
+        ReflectionTestUtils.invokeMethod(jwt, "init");
+        return jwt;
+    }
+
+    // claims-only вход: версия токенов читается из «БД» один раз за ttl, дальше — из памяти
+    static TokenAuthenticator tokenAuthenticator(JwtService jwt) {
+        UserRepository users = userRepositoryStub();
+        TokenVersionRegistry versions = new TokenVersionRegistry(users, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(versions, "ttlMs", 30_000L);
+
+        TokenAuthenticator authenticator = new TokenAuthenticator(jwt, users, versions, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(authenticator, "claimsOnlyAuth", true);
+        return authenticator;
+    }
+
+    // Репозиторий без БД: нужен только для проверки версии токенов
+    private static UserRepository userRepositoryStub() {
+        User user = new User(EMAIL, "x", "bench", "user");
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findTokenVersionById" -> Optional.of(0);
+                    case "findByEmail" -> Optional.of(user);
+                    case "toString" -> "UserRepositoryStub";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
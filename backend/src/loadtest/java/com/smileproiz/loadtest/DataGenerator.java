@@ -0,0 +1,424 @@
+package com.smileproiz.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Синтетические данные большого объёма: товары с вариантами, пользователи, корзины.
+ * Детерминировано: одинаковые seed и исходное состояние БД дают те же строки и те же id.
+ *
+ * - товары: категории, цены (логнормальные), часть полей пустая — как в реальном каталоге;
+ *   у каждого товара сразу создаются варианты размер × цвет (иначе их лениво создаёт первый просмотр);
+ * - пользователи: один BCrypt-хэш общего пароля на всех (хэшировать сотни тысяч паролей — часы),
+ *   вход при этом проходит полную проверку хэша;
+ * - корзины: у доли cart-share пользователей; товары выбираются по закону Ципфа (первые товары каталога —
+ *   самые популярные), число строк — по Парето (большинство корзин из 1–3 строк, редкие — из десятков).
+ *
+ * id задаются явно от текущего MAX(id), после загрузки счётчики identity сдвигаются за последний id.
+ * Пока генератор работает, в эти таблицы никто другой писать не должен.
+ * PostgreSQL загружается через COPY FROM STDIN, остальные БД — пакетными INSERT; в обоих случаях всё одной
+ * транзакцией: упавший прогон не оставляет части данных, и его можно повторить с тем же префиксом.
+ */
+public final class DataGenerator {
+
+    private static final String[] CATEGORIES = {"clothes", "clothes", "clothes", "clothes", "clothes",
+            "accessories", "accessories", "shoes", "shoes", "bags"};
+    private static final Map<String, String[]> NOUNS = Map.of(
+            "clothes", new String[]{"ХУДИ", "ФУТБОЛКА", "ЛОНГСЛИВ", "СВИТШОТ", "КАРГО БРЮКИ", "ШОРТЫ", "КУРТКА"},
+            "accessories", new String[]{"КЕПКА", "ШАПКА", "РЕМЕНЬ", "НОСКИ", "ПАНАМА"},
+            "shoes", new String[]{"КРОССОВКИ", "КЕДЫ", "БОТИНКИ"},
+            "bags", new String[]{"РЮКЗАК", "СУМКА", "ШОППЕР"});
+    private static final String[] STYLES = {"ОВЕРСАЙЗ", "BASIC", "STREETWEAR", "SMILE", "VINTAGE", "SPORT", "CLASSIC"};
+    private static final String[] COLORS = {"Black", "White", "Grey", "Navy", "Beige", "Olive", "Red"};
+    private static final String[] MATERIALS = {"cotton", "polyester", "wool", "denim", "leather"};
+    private static final String[] TAGS = {"new", "sale", "hit"};
+    private static final Map<String, String[]> SIZES = Map.of(
+            "clothes", new String[]{"S", "M", "L", "XL"},
+            "shoes", new String[]{"40", "41", "42", "43", "44"},
+            "accessories", new String[]{"ONE SIZE"},
+            "bags", new String[]{"ONE SIZE"});
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_CART_LINES = 100;
+
+    public record Spec(long products, long users, double cartShare, String prefix, String password,
+                       int bcryptCost, long seed) {
+    }
+
+    public record Result(long products, long variants, long users, long cartItems, long millis) {
+    }
+
+    private final DataSource dataSource;
+    private final Spec spec;
+
+    private long firstProductId;
+    private long firstUserId;
+
+    // по товару — всё, что нужно для строк корзины, без чтения из БД
+    private int[] price;
+    private byte[] category;
+    private byte[] sizeFrom;
+    private byte[] sizeCount;
+    private byte[] color1;
+    private byte[] color2;
+    private long[] firstVariantId;
+
+    public DataGenerator(DataSource dataSource, Spec spec) {
+        this.dataSource = dataSource;
+        this.spec = spec;
+    }
+
+    public Result generate() throws SQLException {
+        if (spec.products() > Integer.MAX_VALUE || (spec.users() > 0 && spec.products() == 0)) {
+            throw new IllegalArgumentException("products должно быть от 1 до " + Integer.MAX_VALUE + ", если есть users");
+        }
+        long started = System.nanoTime();
+        try (Connection c = dataSource.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                if (exists(c, "SELECT 1 FROM users WHERE email = ?", email(0))
+                        || exists(c, "SELECT 1 FROM products WHERE sku = ?", sku(0))) {
+                    throw new IllegalStateException("Данные с префиксом '" + spec.prefix()
+                            + "' уже сгенерированы — укажите другой --prefix или пустую БД");
+                }
+                long products = writeProducts(c);
+                long variants = writeVariants(c);
+                long users = writeUsers(c);
+                long cartItems = writeCarts(c);
+                c.commit();
+                restartIdentity(c, "products");
+                restartIdentity(c, "product_variants");
+                restartIdentity(c, "users");
+                c.commit();
+                return new Result(products, variants, users, cartItems, (System.nanoTime() - started) / 1_000_000);
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    // ================= PRODUCTS =================
+
+    private long writeProducts(Connection c) throws SQLException {
+        int n = (int) spec.products();
+        price = new int[n];
+        category = new byte[n];
+        sizeFrom = new byte[n];
+        sizeCount = new byte[n];
+        color1 = new byte[n];
+        color2 = new byte[n];
+        firstVariantId = new long[n];
+
+        SplittableRandom random = new SplittableRandom(spec.seed());
+        firstProductId = maxId(c, "products") + 1;
+        long nextVariantId = maxId(c, "product_variants") + 1;
+
+        try (RowSink sink = RowSink.open(c, "products", "id", "sku", "name", "price", "category", "description",
+                "material", "tag", "in_stock", "size", "color", "colors")) {
+            for (int i = 0; i < n; i++) {
+                int cat = random.nextInt(CATEGORIES.length);
+                String categoryName = CATEGORIES[cat];
+                String[] sizes = SIZES.get(categoryName);
+                int from = sizes.length > 3 ? random.nextInt(sizes.length - 2) : 0;
+                int sizesUsed = Math.min(3, sizes.length);
+                int c1 = random.nextInt(COLORS.length);
+                int c2 = (c1 + 1 + random.nextInt(COLORS.length - 1)) % COLORS.length;
+                // цена: логнормальная вокруг ~5000, округлена до 100
+                int p = (int) Math.max(500, Math.round(Math.exp(8.5 + 0.6 * random.nextGaussian()) / 100) * 100);
+
+                category[i] = (byte) cat;
+                sizeFrom[i] = (byte) from;
+                sizeCount[i] = (byte) sizesUsed;
+                color1[i] = (byte) c1;
+                color2[i] = (byte) c2;
+                price[i] = p;
+                firstVariantId[i] = nextVariantId;
+                nextVariantId += sizesUsed * 2L;
+
+                String[] nouns = NOUNS.get(categoryName);
+                String name = STYLES[random.nextInt(STYLES.length)] + " " + nouns[random.nextInt(nouns.length)]
+                        + " " + COLORS[c1].toUpperCase() + " " + i;
+                sink.add(firstProductId + i, sku(i), name, p, categoryName,
+                        random.nextInt(10) < 3 ? "Синтетический товар " + i : null,
+                        random.nextBoolean() ? MATERIALS[random.nextInt(MATERIALS.length)] : null,
+                        random.nextInt(10) == 0 ? TAGS[random.nextInt(TAGS.length)] : null,
+                        random.nextInt(100) < 92,
+                        String.join(",", Arrays.copyOfRange(sizes, from, from + sizesUsed)),
+                        COLORS[c1], COLORS[c1] + "," + COLORS[c2]);
+            }
+            return sink.rows();
+        }
+    }
+
+    private long writeVariants(Connection c) throws SQLException {
+        try (RowSink sink = RowSink.open(c, "product_variants", "id", "product_id", "size", "color", "active")) {
+            for (int i = 0; i < spec.products(); i++) {
+                long id = firstVariantId[i];
+                for (int s = 0; s < sizeCount[i]; s++) {
+                    for (byte color : new byte[]{color1[i], color2[i]}) {
+                        sink.add(id++, firstProductId + i, size(i, s), COLORS[color], true);
+                    }
+                }
+            }
+            return sink.rows();
+        }
+    }
+
+    private String size(int product, int index) {
+        return SIZES.get(CATEGORIES[category[product]])[sizeFrom[product] + index];
+    }
+
+    // ================= USERS & CARTS =================
+
+    private long writeUsers(Connection c) throws SQLException {
+        SplittableRandom random = new SplittableRandom(spec.seed() + 1);
+        String hash = new BCryptPasswordEncoder(spec.bcryptCost()).encode(spec.password());
+        firstUserId = maxId(c, "users") + 1;
+        try (RowSink sink = RowSink.open(c, "users", "id", "email", "password", "username", "role",
+                "push_enabled", "phone", "token_version")) {
+            for (long i = 0; i < spec.users(); i++) {
+                sink.add(firstUserId + i, email(i), hash, spec.prefix() + "-" + i, "user",
+                        random.nextInt(10) < 8,
+                        random.nextInt(10) < 4 ? String.format("+79%09d", random.nextLong(1_000_000_000L)) : null,
+                        0);
+            }
+            return sink.rows();
+        }
+    }
+
+    private long writeCarts(Connection c) throws SQLException {
+        if (spec.users() == 0) return 0;
+        SplittableRandom random = new SplittableRandom(spec.seed() + 2);
+        double logN = Math.log(spec.products() + 1.0);
+        Set<Long> seen = new HashSet<>();
+
+        try (RowSink sink = RowSink.open(c, "cart_items", "user_id", "product_id", "variant_id", "quantity",
+                "selected_size", "selected_color", "price")) {
+            for (long u = 0; u < spec.users(); u++) {
+                if (random.nextDouble() >= spec.cartShare()) continue;
+                // Парето (alpha 1.3): P(строк > k) ~ k^-1.3
+                int lines = (int) Math.min(MAX_CART_LINES, Math.floor(Math.pow(1 - random.nextDouble(), -1 / 1.3)));
+                seen.clear();
+                for (int l = 0; l < lines; l++) {
+                    // Ципф (s = 1): P(ранг <= r) = ln(r + 1) / ln(N + 1)
+                    int product = (int) Math.min(spec.products() - 1, (long) Math.exp(random.nextDouble() * logN) - 1);
+                    int variants = sizeCount[product] * 2;
+                    int v = random.nextInt(variants);
+                    if (!seen.add(((long) product << 8) | v)) continue;
+
+                    int quantity = random.nextInt(100) < 85 ? 1 : 2 + random.nextInt(2);
+                    sink.add(firstUserId + u, firstProductId + product, firstVariantId[product] + v, quantity,
+                            size(product, v / 2), COLORS[v % 2 == 0 ? color1[product] : color2[product]], price[product]);
+                }
+            }
+            return sink.rows();
+        }
+    }
+
+    private String email(long i) {
+        return spec.prefix() + "-" + i + "@smileproiz.local";
+    }
+
+    private String sku(long i) {
+        return spec.prefix().toUpperCase() + "-" + i;
+    }
+
+    // ================= SQL HELPERS =================
+
+    private static boolean exists(Connection c, String sql, Object arg) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setObject(1, arg);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static long maxId(Connection c, String table) throws SQLException {
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // следующий id, выданный самой БД, — после последнего сгенерированного
+    private static void restartIdentity(Connection c, String table) throws SQLException {
+        long next = maxId(c, table) + 1;
+        try (Statement st = c.createStatement()) {
+            if (isPostgres(c)) {
+                st.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " + next + ", false)");
+            } else {
+                st.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+            }
+        }
+    }
+
+    private static boolean isPostgres(Connection c) throws SQLException {
+        return c.isWrapperFor(PGConnection.class);
+    }
+
+    /**
+     * Приёмник строк одной таблицы: COPY для PostgreSQL, пакетные INSERT для остальных.
+     * Значения — в порядке колонок из open().
+     */
+    private abstract static class RowSink implements AutoCloseable {
+
+        private final String table;
+        private final long started = System.nanoTime();
+        protected long rows;
+
+        RowSink(String table) {
+            this.table = table;
+        }
+
+        static RowSink open(Connection c, String table, String... columns) throws SQLException {
+            return isPostgres(c) ? new CopySink(c, table, columns) : new BatchSink(c, table, columns);
+        }
+
+        abstract void add(Object... values) throws SQLException;
+
+        long rows() {
+            return rows;
+        }
+
+        protected abstract void finish() throws SQLException;
+
+        @Override
+        public void close() throws SQLException {
+            finish();
+            System.out.printf("  %-17s %,12d rows in %,d ms%n", table, rows, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private static final class BatchSink extends RowSink {
+
+        private final PreparedStatement ps;
+
+        BatchSink(Connection c, String table, String[] columns) throws SQLException {
+            super(table);
+            this.ps = c.prepareStatement("INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                    + "?, ".repeat(columns.length - 1) + "?)");
+        }
+
+        @Override
+        void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    ps.setNull(i + 1, Types.VARCHAR); // пустыми бывают только строковые колонки
+                } else {
+                    ps.setObject(i + 1, values[i]);
+                }
+            }
+            ps.addBatch();
+            if (++rows % BATCH_SIZE == 0) {
+                ps.executeBatch();
+            }
+        }
+
+        @Override
+        protected void finish() throws SQLException {
+            try (ps) {
+                ps.executeBatch();
+            }
+        }
+    }
+
+    private static final class CopySink extends RowSink {
+
+        private static final int FLUSH_BYTES = 256 * 1024;
+
+        private final CopyIn copy;
+        private final StringBuilder buffer = new StringBuilder(FLUSH_BYTES + 4096);
+
+        CopySink(Connection c, String table, String[] columns) throws SQLException {
+            super(table);
+            this.copy = c.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                    "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)");
+        }
+
+        @Override
+        void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) buffer.append(',');
+                Object v = values[i];
+                if (v == null) continue; // пустое поле без кавычек — NULL
+                String s = v.toString();
+                if (v instanceof String && (s.isEmpty() || s.indexOf(',') >= 0 || s.indexOf('"') >= 0
+                        || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0)) {
+                    buffer.append('"').append(s.replace("\"", "\"\"")).append('"');
+                } else {
+                    buffer.append(s);
+                }
+            }
+            buffer.append('\n');
+            rows++;
+            if (buffer.length() >= FLUSH_BYTES) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        @Override
+        protected void finish() throws SQLException {
+            flush();
+            copy.endCopy();
+        }
+    }
+
+    // ================= CLI =================
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Ожидалось --name value, получено: " + args[i]);
+            }
+            values.put(args[i].substring(2), args[i + 1]);
+        }
+        String url = values.getOrDefault("jdbc-url", "jdbc:postgresql://localhost:5432/smileproiz");
+        Spec spec = new Spec(
+                Long.parseLong(values.getOrDefault("products", "1000000")),
+                Long.parseLong(values.getOrDefault("users", "200000")),
+                Double.parseDouble(values.getOrDefault("cart-share", "0.3")),
+                values.getOrDefault("prefix", "gen"),
+                values.getOrDefault("password", LoadTest.PASSWORD),
+                Integer.parseInt(values.getOrDefault("bcrypt-cost", "10")),
+                Long.parseLong(values.getOrDefault("seed", "42")));
+        String user = values.getOrDefault("db-user", "postgres");
+        String password = values.getOrDefault("db-password", "postgres");
+
+        System.out.printf("Generating into %s: %,d products, %,d users (seed %d)%n",
+                url, spec.products(), spec.users(), spec.seed());
+        DataSource dataSource = new DriverManagerDataSource(url, user, password);
+        Result result = new DataGenerator(dataSource, spec).generate();
+        System.out.printf("Done in %,d ms: %,d products, %,d variants, %,d users, %,d cart items%n",
+                result.millis(), result.products(), result.variants(), result.users(), result.cartItems());
+    }
+}
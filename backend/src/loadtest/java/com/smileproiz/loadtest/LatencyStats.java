@@ -0,0 +1,109 @@
+package com.smileproiz.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки по эндпоинтам в HdrHistogram (мкс, 3 значащие цифры).
+ * Для каждого запроса пишутся два значения:
+ * - response — от момента, когда запрос ДОЛЖЕН был уйти по расписанию (поправка на coordinated omission):
+ *   если генератор не успел отправить вовремя, ожидание тоже попадает в задержку, как у реального клиента;
+ * - service — от фактической отправки до ответа (то, что обычно меряют наивные генераторы).
+ * Большая разница между ними в хвосте — признак того, что упёрлись в сам генератор или в очередь перед сервером.
+ */
+final class LatencyStats {
+
+    static final double[] PERCENTILES = {50, 95, 99, 99.9};
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    static final class Endpoint {
+        final Histogram response = new ConcurrentHistogram(MAX_MICROS, 3);
+        final Histogram service = new ConcurrentHistogram(MAX_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    void record(String endpoint, long intendedNanos, long sentNanos, long endNanos, boolean ok) {
+        Endpoint e = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        e.response.recordValue(toMicros(endNanos - intendedNanos));
+        e.service.recordValue(toMicros(endNanos - sentNanos));
+        if (!ok) {
+            e.errors.increment();
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(MAX_MICROS, Math.max(0, nanos / 1000));
+    }
+
+    void print(PrintStream out, double seconds) {
+        out.printf("%-34s %8s %8s %6s %9s %9s %9s %9s %9s %11s%n",
+                "endpoint", "count", "req/s", "err", "p50", "p95", "p99", "p99.9", "max", "p99(svc)");
+        sorted().forEach((name, e) -> {
+            Histogram r = e.response;
+            out.printf("%-34s %8d %8.1f %6d %9s %9s %9s %9s %9s %11s%n",
+                    name, r.getTotalCount(), r.getTotalCount() / seconds, e.errors.sum(),
+                    ms(r.getValueAtPercentile(50)), ms(r.getValueAtPercentile(95)),
+                    ms(r.getValueAtPercentile(99)), ms(r.getValueAtPercentile(99.9)),
+                    ms(r.getMaxValue()), ms(e.service.getValueAtPercentile(99)));
+        });
+        out.println("(ms; p50..max corrected for coordinated omission, p99(svc) = service time only)");
+    }
+
+    private static String ms(long micros) {
+        return String.format("%.1f", micros / 1000.0);
+    }
+
+    // Структура для JSON-отчёта: endpoint -> count/errors/rps/response{p50..}/service{p50..}
+    Map<String, Object> toReport(double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        sorted().forEach((name, e) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", e.response.getTotalCount());
+            row.put("errors", e.errors.sum());
+            row.put("rps", e.response.getTotalCount() / seconds);
+            row.put("responseMs", percentiles(e.response));
+            row.put("serviceMs", percentiles(e.service));
+            report.put(name, row);
+        });
+        return report;
+    }
+
+    private static Map<String, Double> percentiles(Histogram h) {
+        Map<String, Double> p = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            p.put("p" + (percentile == (long) percentile ? String.valueOf((long) percentile) : String.valueOf(percentile)),
+                    h.getValueAtPercentile(percentile) / 1000.0);
+        }
+        p.put("max", h.getMaxValue() / 1000.0);
+        return p;
+    }
+
+    long totalRequests() {
+        return endpoints.values().stream().mapToLong(e -> e.response.getTotalCount()).sum();
+    }
+
+    long totalErrors() {
+        return endpoints.values().stream().mapToLong(e -> e.errors.sum()).sum();
+    }
+
+    private Map<String, Endpoint> sorted() {
+        // сортировка по пути, затем по методу — строки одного ресурса идут рядом
+        Map<String, Endpoint> sorted = new TreeMap<>((a, b) -> {
+            int byPath = a.substring(a.indexOf(' ') + 1).compareTo(b.substring(b.indexOf(' ') + 1));
+            return byPath != 0 ? byPath : a.compareTo(b);
+        });
+        sorted.putAll(endpoints);
+        return sorted;
+    }
+}
@@ -0,0 +1,255 @@
+package com.smileproiz.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.smileproiz.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный прогон сценариев покупателя (открытая модель).
+ * Сессии приходят пуассоновским потоком с частотой --rate в секунду независимо от того, успевает ли сервер:
+ * медленный сервер не снижает нагрузку, а копит одновременные сессии — как в проде.
+ * Каждая сессия — отдельный виртуальный поток (ShopperSession), задержки — в LatencyStats.
+ *
+ * Без --base-url поднимает backend в этом же процессе на H2 (профиль test) со случайным портом
+ * и заполняет её DataGenerator'ом: --products товаров, --users пользователей с корзинами. Генератор и сервер тогда делят CPU — для сравнения «до/после»
+ * годится, для абсолютных цифр лучше запускать против отдельного инстанса.
+ */
+public final class LoadTest {
+
+    static final String PASSWORD = "load-secret-1";
+
+    private static final String ACCOUNT_PREFIX = "load-user";
+
+    record Options(String baseUrl, double rate, int durationSec, int warmupSec, long thinkMs, int users,
+                   int products, double registerShare, double wsShare, long seed, Path out) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < args.length; i++) {
+                if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Ожидалось --name value, получено: " + args[i]);
+                }
+                values.put(args[i].substring(2), args[++i]);
+            }
+            Options options = new Options(
+                    values.remove("base-url"),
+                    Double.parseDouble(values.getOrDefault("rate", "2")),
+                    Integer.parseInt(values.getOrDefault("duration", "60")),
+                    Integer.parseInt(values.getOrDefault("warmup", "15")),
+                    Long.parseLong(values.getOrDefault("think-ms", "300")),
+                    Integer.parseInt(values.getOrDefault("users", "50")),
+                    Integer.parseInt(values.getOrDefault("products", "500")),
+                    Double.parseDouble(values.getOrDefault("register-share", "0.05")),
+                    Double.parseDouble(values.getOrDefault("ws-share", "0.5")),
+                    Long.parseLong(values.getOrDefault("seed", "42")),
+                    Path.of(values.getOrDefault("out", "target/loadtest-result.json")));
+            List.of("rate", "duration", "warmup", "think-ms", "users", "products", "register-share", "ws-share",
+                    "seed", "out").forEach(values::remove);
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Неизвестные параметры: " + values.keySet());
+            }
+            if (options.rate <= 0 || options.durationSec <= 0 || options.users <= 0) {
+                throw new IllegalArgumentException("rate, duration и users должны быть больше нуля");
+            }
+            return options;
+        }
+    }
+
+    record Account(String email, String password) {
+    }
+
+    record Target(String baseUrl, HttpClient http, ObjectMapper json,
+                  List<Account> accounts, List<Long> productIds, List<String> categories) {
+
+        String wsUrl() {
+            return baseUrl.replaceFirst("^http", "ws");
+        }
+
+        // Популярность товаров по степенному закону: ~60% добавлений приходятся на первые 20% каталога
+        long popularProduct(SplittableRandom random) {
+            int index = (int) (Math.pow(random.nextDouble(), 3) * productIds.size());
+            return productIds.get(Math.min(index, productIds.size() - 1));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        ConfigurableApplicationContext embedded = null;
+        String baseUrl = options.baseUrl();
+        if (baseUrl == null) {
+            embedded = startEmbedded(options);
+            baseUrl = "http://localhost:" + embedded.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            run(options, baseUrl.replaceAll("/+$", ""), embedded == null);
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startEmbedded(Options options) throws SQLException {
+        System.out.printf("Starting embedded backend (H2, %d products, %d users)...%n",
+                options.products(), options.users());
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .profiles("test")
+                .run("--server.port=0", "--management.server.port=-1", "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN", "--logging.level.com.smileproiz.monitoring=ERROR");
+
+        // аккаунты те же, что ждёт prepare(): load-user-N@smileproiz.local с паролем PASSWORD
+        new DataGenerator(context.getBean(DataSource.class), new DataGenerator.Spec(options.products(), options.users(),
+                0.3, ACCOUNT_PREFIX, PASSWORD, 10, options.seed())).generate();
+        return context;
+    }
+
+    private static void run(Options options, String baseUrl, boolean register) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        ObjectMapper json = new ObjectMapper();
+        Target target = prepare(options, baseUrl, http, json, register);
+        System.out.printf("Target %s: %d accounts, %d products; %.1f sessions/s for %ds after %ds warmup%n",
+                baseUrl, target.accounts().size(), target.productIds().size(),
+                options.rate(), options.durationSec(), options.warmupSec());
+
+        LatencyStats stats = new LatencyStats();
+        SplittableRandom arrivals = new SplittableRandom(options.seed());
+        AtomicInteger active = new AtomicInteger();
+        long meanGapNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate());
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmupSec());
+        long stopAt = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSec());
+        int sessions = 0;
+        int maxActive = 0;
+        long maxLagNanos = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long arrival = start;
+            while (true) {
+                arrival += (long) (-Math.log(1 - arrivals.nextDouble()) * meanGapNanos);
+                if (arrival >= stopAt) {
+                    break;
+                }
+                long wait;
+                while ((wait = arrival - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                // опоздание планировщика не теряется: сессия считает задержку от arrival
+                maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - arrival);
+                ShopperSession session = new ShopperSession(options, target, stats,
+                        arrivals.nextLong(), arrival, arrival >= measureFrom);
+                active.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        session.run();
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                });
+                sessions++;
+                maxActive = Math.max(maxActive, active.get());
+            }
+            System.out.printf("Arrivals done (%d sessions), waiting for %d in flight...%n", sessions, active.get());
+        }
+
+        double seconds = options.durationSec();
+        System.out.println();
+        stats.print(System.out, seconds);
+        System.out.printf("%nsessions=%d, max concurrent=%d, requests=%d, errors=%d, max scheduler lag=%.1f ms%n",
+                sessions, maxActive, stats.totalRequests(), stats.totalErrors(), maxLagNanos / 1_000_000.0);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("baseUrl", baseUrl);
+        report.put("options", Map.of("rate", options.rate(), "durationSec", options.durationSec(),
+                "warmupSec", options.warmupSec(), "thinkMs", options.thinkMs(), "users", options.users(),
+                "registerShare", options.registerShare(), "wsShare", options.wsShare(), "seed", options.seed()));
+        report.put("sessions", sessions);
+        report.put("maxConcurrentSessions", maxActive);
+        report.put("endpoints", stats.toReport(seconds));
+        Files.createDirectories(options.out().toAbsolutePath().getParent());
+        json.enable(SerializationFeature.INDENT_OUTPUT).writeValue(options.out().toFile(), report);
+        System.out.println("Report: " + options.out());
+    }
+
+    // Аккаунты (регистрация, если их ещё нет) и список товаров — до начала замера
+    private static Target prepare(Options options, String baseUrl, HttpClient http, ObjectMapper json,
+                                  boolean register) throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < options.users(); i++) {
+            Account account = new Account(ACCOUNT_PREFIX + "-" + i + "@smileproiz.local", PASSWORD);
+            accounts.add(account);
+            if (!register) {
+                continue;
+            }
+            // повторный прогон против той же БД: пользователь уже есть — ответ не 2xx, вход всё равно сработает
+            http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/register"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(ShopperSession.registerBody(account)))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+        }
+
+        // каталог требует входа — берём токен первого аккаунта
+        HttpResponse<String> login = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + accounts.get(0).email()
+                        + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String token = json.readTree(login.body()).path("data").path("token").asText("");
+        if (token.isEmpty()) {
+            throw new IllegalStateException("Не удалось войти под " + accounts.get(0).email() + ": " + login.body());
+        }
+
+        List<Long> productIds = new ArrayList<>();
+        Set<String> categories = new LinkedHashSet<>();
+        String cursor = null;
+        do {
+            String path = "/api/products/page?limit=100"
+                    + (cursor != null ? "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8) : "");
+            JsonNode page = json.readTree(http.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString()).body());
+            for (JsonNode p : page.path("items")) {
+                if (p.path("inStock").asBoolean()) {
+                    productIds.add(p.path("id").asLong());
+                }
+                if (p.hasNonNull("category")) {
+                    categories.add(p.path("category").asText());
+                }
+            }
+            cursor = page.path("hasMore").asBoolean() ? page.path("nextCursor").asText() : null;
+        } while (cursor != null && productIds.size() < 10_000);
+
+        if (productIds.isEmpty()) {
+            throw new IllegalStateException("В каталоге нет товаров в наличии");
+        }
+        return new Target(baseUrl, http, json, List.copyOf(accounts), List.copyOf(productIds), List.copyOf(categories));
+    }
+}
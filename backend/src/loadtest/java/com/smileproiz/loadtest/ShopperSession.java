@@ -0,0 +1,293 @@
+package com.smileproiz.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Один покупатель от входа до ухода:
+ * (регистрация) → вход → /ws/cart (часть сессий) → каталог, страницы, поиск/фильтр → варианты →
+ * добавление 1–3 товаров → бейдж → изменение количества → удаление строки → просмотр корзины.
+ * Между шагами — пауза «на подумать» (экспоненциальная, среднее think-ms).
+ * Каждый запрос меряется от запланированного момента (см. LatencyStats).
+ */
+final class ShopperSession implements Runnable {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    private static final String[] SEARCH_TERMS = {"tee", "hoodie", "black", "худи", "smile", "cap"};
+
+    private final LoadTest.Options options;
+    private final LoadTest.Target target;
+    private final LatencyStats stats;
+    private final SplittableRandom random;
+    private final long arrivalNanos;
+    private final boolean recorded;
+
+    private String token;
+    private long next; // запланированное время следующего запроса (System.nanoTime)
+
+    ShopperSession(LoadTest.Options options, LoadTest.Target target, LatencyStats stats,
+                   long seed, long arrivalNanos, boolean recorded) {
+        this.options = options;
+        this.target = target;
+        this.stats = stats;
+        this.random = new SplittableRandom(seed);
+        this.arrivalNanos = arrivalNanos;
+        this.recorded = recorded;
+    }
+
+    @Override
+    public void run() {
+        next = arrivalNanos;
+        CartSocket socket = null;
+        try {
+            LoadTest.Account account;
+            if (random.nextDouble() < options.registerShare()) {
+                account = new LoadTest.Account("load-" + Long.toHexString(random.nextLong()) + "@smileproiz.local",
+                        LoadTest.PASSWORD);
+                if (call("POST /api/users/register", post("/api/users/register", registerBody(account))) == null) {
+                    return;
+                }
+                think();
+            } else {
+                account = target.accounts().get(random.nextInt(target.accounts().size()));
+            }
+
+            JsonNode login = call("POST /api/users/login", post("/api/users/login",
+                    "{\"email\":\"" + account.email() + "\",\"password\":\"" + account.password() + "\"}"));
+            if (login == null || login.path("data").path("token").asText("").isEmpty()) {
+                return;
+            }
+            token = login.path("data").path("token").asText();
+
+            if (random.nextDouble() < options.wsShare()) {
+                socket = CartSocket.open(this);
+            }
+            think();
+
+            browse();
+            List<Long> lines = fillCart(socket);
+
+            call("GET /api/cart/summary", get("/api/cart/summary"));
+            think();
+
+            if (!lines.isEmpty()) {
+                Long line = lines.get(random.nextInt(lines.size()));
+                mutate(socket, "PUT /api/cart/update/{id}", HttpRequest.newBuilder(uri("/api/cart/update/" + line
+                        + "?quantity=" + (2 + random.nextInt(3)))).PUT(HttpRequest.BodyPublishers.noBody()));
+                think();
+            }
+            if (lines.size() > 1) {
+                mutate(socket, "DELETE /api/cart/delete/{id}",
+                        HttpRequest.newBuilder(uri("/api/cart/delete/" + lines.get(0))).DELETE());
+                think();
+            }
+            call("GET /api/cart/all", get("/api/cart/all"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (socket != null) {
+                socket.close();
+            }
+        }
+    }
+
+    private void browse() throws InterruptedException {
+        call("GET /api/products", get("/api/products"));
+        think();
+
+        // 1–3 страницы каталога по курсору
+        String cursor = null;
+        int pages = 1 + random.nextInt(3);
+        for (int i = 0; i < pages; i++) {
+            JsonNode page = call("GET /api/products/page", get("/api/products/page?limit=20"
+                    + (cursor != null ? "&cursor=" + encode(cursor) : "")));
+            think();
+            if (page == null || !page.path("hasMore").asBoolean()) {
+                break;
+            }
+            cursor = page.path("nextCursor").asText();
+        }
+
+        if (random.nextBoolean()) {
+            String q = SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)];
+            call("GET /api/products/search", get("/api/products/search?q=" + encode(q) + "&limit=20"));
+        } else {
+            List<String> categories = target.categories();
+            String category = categories.isEmpty() ? "clothes" : categories.get(random.nextInt(categories.size()));
+            call("GET /api/products/filter", get("/api/products/filter?category=" + encode(category)
+                    + (random.nextBoolean() ? "&inStock=true" : "")));
+        }
+        think();
+    }
+
+    private List<Long> fillCart(CartSocket socket) throws InterruptedException {
+        List<Long> lines = new ArrayList<>();
+        int items = 1 + random.nextInt(3);
+        for (int i = 0; i < items; i++) {
+            long productId = target.popularProduct(random);
+            JsonNode variants = call("GET /api/products/{id}/variants", get("/api/products/" + productId + "/variants"));
+            think();
+            if (variants == null || !variants.isArray() || variants.isEmpty()) {
+                continue;
+            }
+            JsonNode variant = variants.get(random.nextInt(variants.size()));
+            JsonNode added = mutate(socket, "POST /api/cart/add", post("/api/cart/add",
+                    "{\"productId\":" + productId + ",\"variantId\":" + variant.path("id").asLong() + ",\"quantity\":1}"));
+            if (added != null && added.hasNonNull("id")) {
+                lines.add(added.path("id").asLong());
+            }
+            think();
+        }
+        return lines;
+    }
+
+    // Изменение корзины: если открыт сокет, ждём от него cart_update и меряем доставку от отправки запроса
+    private JsonNode mutate(CartSocket socket, String endpoint, HttpRequest.Builder request) {
+        if (socket != null) {
+            socket.expectUpdate(Math.max(next, System.nanoTime()));
+        }
+        return call(endpoint, request);
+    }
+
+    // Отправка в запланированный момент; null — если ответ не 2xx или запрос не удался
+    private JsonNode call(String endpoint, HttpRequest.Builder request) {
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        long intended = next;
+        long sent = System.nanoTime();
+        boolean ok = false;
+        JsonNode body = null;
+        try {
+            HttpResponse<byte[]> response = target.http().send(request.timeout(REQUEST_TIMEOUT).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            ok = response.statusCode() / 100 == 2;
+            if (ok) {
+                body = response.body().length == 0 ? target.json().nullNode() : target.json().readTree(response.body());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // соединение оборвано или таймаут — считаем ошибкой, задержка всё равно записывается
+        }
+        long end = System.nanoTime();
+        if (recorded) {
+            stats.record(endpoint, intended, sent, end, ok);
+        }
+        next = end;
+        return ok ? body : null;
+    }
+
+    // Пауза до следующего шага; если поток проснётся позже, опоздание войдёт в задержку следующего запроса
+    private void think() throws InterruptedException {
+        long pause = (long) (-Math.log(1 - random.nextDouble()) * TimeUnit.MILLISECONDS.toNanos(options.thinkMs()));
+        next += pause;
+        long wait;
+        while ((wait = next - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private URI uri(String path) {
+        return URI.create(target.baseUrl() + path);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    static String registerBody(LoadTest.Account account) {
+        String name = account.email().substring(0, account.email().indexOf('@'));
+        return "{\"email\":\"" + account.email() + "\",\"password\":\"" + account.password()
+                + "\",\"username\":\"" + name + "\"}";
+    }
+
+    /**
+     * /ws/cart на время сессии. Рукопожатие меряется как «WS /ws/cart (connect)»,
+     * доставка cart_update после изменения корзины — как «WS cart_update» (включает app.ws.coalesce-ms).
+     */
+    static final class CartSocket implements WebSocket.Listener {
+
+        private final ShopperSession session;
+        private final AtomicLong pendingSince = new AtomicLong();
+        private volatile WebSocket socket;
+
+        private CartSocket(ShopperSession session) {
+            this.session = session;
+        }
+
+        static CartSocket open(ShopperSession session) {
+            CartSocket listener = new CartSocket(session);
+            long intended = session.next;
+            long sent = System.nanoTime();
+            boolean ok = false;
+            try {
+                listener.socket = session.target.http().newWebSocketBuilder()
+                        .connectTimeout(REQUEST_TIMEOUT)
+                        .header("Authorization", "Bearer " + session.token)
+                        .buildAsync(URI.create(session.target.wsUrl() + "/ws/cart"), listener)
+                        .get(REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+                ok = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // 401 или обрыв при рукопожатии — сессия продолжается без сокета
+            }
+            long end = System.nanoTime();
+            if (session.recorded) {
+                session.stats.record("WS /ws/cart (connect)", intended, sent, end, ok);
+            }
+            session.next = end;
+            return ok ? listener : null;
+        }
+
+        void expectUpdate(long sinceNanos) {
+            pendingSince.set(sinceNanos);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            long since = pendingSince.getAndSet(0);
+            if (since != 0 && session.recorded && data.toString().contains("cart_update")) {
+                long now = System.nanoTime();
+                session.stats.record("WS cart_update", since, since, now, true);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        void close() {
+            WebSocket ws = socket;
+            if (ws != null) {
+                ws.sendClose(WebSocket.NORMAL_CLOSURE, "bye").exceptionally(e -> null);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.smileproiz.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// ✅ Бинарные форматы ответа по заголовку Accept: application/x-jackson-smile или application/cbor.
+// Без Accept (и с application/json) ответ остаётся JSON — старые клиенты ничего не замечают.
+// Конвертеры собираются тем же билдером, что и основной ObjectMapper (spring.jackson.*, модули),
+// и заменяют стандартные конвертеры Spring MVC с «голым» маппером.
+@Configuration
+public class ContentNegotiationConfig {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -1,7 +1,10 @@
 package com.smileproiz.config;
 
 import com.smileproiz.security.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -43,9 +46,16 @@ public class SecurityConfig {
                         // preflight для CORS
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+                        // завершение потокового ответа (StreamingResponseBody): запрос уже проверен при первом входе,
+                        // а без сессии контекста безопасности в async-диспетчеризации нет
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // public endpoints
                         .requestMatchers("/api/users/login", "/api/users/register", "/api/users/test").permitAll()
 
+                        // actuator — на отдельном внутреннем порту (management.server.port), без JWT для Prometheus
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll()
+
                         // websocket (если нужен без токена)
                         .requestMatchers("/ws/**").permitAll()
 
@@ -56,8 +66,9 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Стоимость BCrypt; при её смене старые хэши пересчитываются при входе (UserService.login)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
\ No newline at end of file
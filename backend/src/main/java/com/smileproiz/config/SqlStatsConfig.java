@@ -0,0 +1,46 @@
+package com.smileproiz.config;
+
+import com.smileproiz.monitoring.QueryCountingDataSource;
+import com.smileproiz.monitoring.SqlStatsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+// ✅ Учёт SQL по HTTP-запросам: пул оборачивается счётчиком, фильтр открывает область на запрос
+@Configuration
+@ConditionalOnProperty(name = "app.sql.stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatsConfig {
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource ds && !(bean instanceof QueryCountingDataSource)) {
+                    return new QueryCountingDataSource(ds);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // раньше фильтров безопасности — чтобы учесть и проверку токена
+    @Bean
+    public FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(
+            @Value("${app.sql.stats.warn-queries:20}") int warnQueries,
+            @Value("${app.sql.stats.n-plus-one-threshold:5}") int nPlusOneThreshold,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatsFilter(warnQueries, nPlusOneThreshold, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
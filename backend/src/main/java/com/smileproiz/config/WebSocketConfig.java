@@ -1,18 +1,52 @@
 package com.smileproiz.config;
 
+import com.smileproiz.handler.CartSessionRegistry;
+import com.smileproiz.handler.CatalogSessionRegistry;
+import com.smileproiz.handler.CatalogWebSocketHandler;
 import com.smileproiz.handler.CartWebSocketHandler;
+import com.smileproiz.security.JwtHandshakeInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    private final CartSessionRegistry cartSessions;
+    private final CatalogSessionRegistry catalogSessions;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    // 🔐 через запятую, можно шаблоны (http://localhost:[*]); мобильное приложение Origin не шлёт и проверку не проходит
+    @Value("${app.ws.allowed-origins:http://localhost:[*],http://127.0.0.1:[*]}")
+    private String[] allowedOrigins;
+
+    public WebSocketConfig(CartSessionRegistry cartSessions,
+                           CatalogSessionRegistry catalogSessions,
+                           JwtHandshakeInterceptor jwtHandshakeInterceptor) {
+        this.cartSessions = cartSessions;
+        this.catalogSessions = catalogSessions;
+        this.jwtHandshakeInterceptor = jwtHandshakeInterceptor;
+    }
+
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(new CartWebSocketHandler(), "/ws/cart")
-                .setAllowedOrigins("*");
+        // браузер передаёт токен подпротоколами "bearer", <jwt> и требует, чтобы сервер выбрал один из них
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler();
+        handshakeHandler.setSupportedProtocols(JwtHandshakeInterceptor.BEARER_PROTOCOL);
+
+        registry.addHandler(new CartWebSocketHandler(cartSessions), "/ws/cart")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOriginPatterns(allowedOrigins);
+
+        // каталог тоже только для вошедших — как и GET /api/products
+        registry.addHandler(new CatalogWebSocketHandler(catalogSessions), "/ws/catalog")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOriginPatterns(allowedOrigins);
     }
 }
@@ -1,6 +1,8 @@
 package com.smileproiz.controller;
 
 import com.smileproiz.dto.AddToCartDto;
+import com.smileproiz.dto.CartItemViewDto;
+import com.smileproiz.dto.CartSummaryDto;
 import com.smileproiz.model.CartItem;
 import com.smileproiz.service.CartService;
 import org.slf4j.Logger;
@@ -28,17 +30,25 @@ public class CartController {
     }
 
     @GetMapping("/all")
-    public List<CartItem> getCartItems() {
+    public List<CartItemViewDto> getCartItems() {
         return cartService.getAllItems(); // теперь вернёт только корзину текущего пользователя
     }
 
+    // ✅ количество и сумма для бейджа — без строк корзины
+    @GetMapping("/summary")
+    public CartSummaryDto getCartSummary() {
+        return cartService.getSummary();
+    }
+
     @PostMapping("/add")
     public ResponseEntity<?> addToCart(@RequestBody AddToCartDto dto) {
         try {
             CartItem item = cartService.addItem(
                     dto.getProductId(),
+                    dto.getVariantId(),
                     dto.getSelectedSize(),
-                    dto.getSelectedColor()
+                    dto.getSelectedColor(),
+                    dto.getQuantity()
             );
             logger.info("Товар добавлен в корзину: {}", item.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(item);
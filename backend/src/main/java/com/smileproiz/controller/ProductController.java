@@ -1,11 +1,36 @@
 package com.smileproiz.controller;
 
+import com.smileproiz.dto.CatalogCacheStatsDto;
+import com.smileproiz.dto.ProductFilterDto;
+import com.smileproiz.dto.ProductFilterResultDto;
+import com.smileproiz.dto.ProductImportResultDto;
+import com.smileproiz.dto.ProductPageDto;
+import com.smileproiz.dto.ProductSearchResultDto;
 import com.smileproiz.model.Product;
+import com.smileproiz.model.ProductVariant;
+import com.smileproiz.service.ProductExportService;
+import com.smileproiz.service.ProductImportService;
 import com.smileproiz.service.ProductService;
+import com.smileproiz.service.ProductService.CatalogSnapshot;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/products")
@@ -13,15 +38,78 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ProductImportService productImportService,
+                             ProductExportService productExportService) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.productExportService = productExportService;
     }
 
     // ✅ можно оставить доступным всем (или сделать authenticated — как решишь)
+    // ✅ Conditional GET: если у клиента актуальная версия (If-None-Match / If-Modified-Since) — 304 без тела
+    // ✅ Каталог больше app.catalog.legacy-max-items: X-Catalog-Truncated: true и Link rel="next" на /page
+    // с курсором после последнего отданного товара
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest request) {
+        CatalogSnapshot catalog = productService.getCatalog(); // ограничено app.catalog.legacy-max-items
+
+        if (request.checkNotModified(catalog.etag(), catalog.lastModified())) {
+            return null; // 304 и заголовки уже выставлены
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (catalog.truncated() && !catalog.products().isEmpty()) {
+            Product last = catalog.products().get(catalog.products().size() - 1);
+            response.header("X-Catalog-Truncated", "true")
+                    .header(HttpHeaders.LINK, "</api/products/page?cursor="
+                            + productService.encodeCursor("id", last) + ">; rel=\"next\"");
+        }
+        return response
+                .eTag(catalog.etag())
+                .lastModified(catalog.lastModified())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT) // JSON / Smile / CBOR — разные тела под одним URL
+                .body(catalog.products());
+    }
+
+    // ✅ Постраничный каталог: /api/products/page?sort=id|price|name&cursor=...&limit=50
+    @GetMapping("/page")
+    public ProductPageDto getProductPage(@RequestParam(required = false) String sort,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit) {
+        return productService.getProductPage(sort, cursor, limit);
+    }
+
+    // ✅ Поиск: /api/products/search?q=худи&page=0&limit=20
+    @GetMapping("/search")
+    public ProductSearchResultDto search(@RequestParam String q,
+                                         @RequestParam(required = false) Integer page,
+                                         @RequestParam(required = false) Integer limit) {
+        return productService.search(q, page, limit);
+    }
+
+    // ✅ Фильтр + счётчики фасетов: /api/products/filter?category=clothes&size=M&color=Black&minPrice=5000&inStock=true
+    @GetMapping("/filter")
+    public ProductFilterResultDto filter(ProductFilterDto filter) {
+        return productService.filter(filter);
+    }
+
+    // ✅ Варианты товара (размер × цвет) — их id можно передавать в /api/cart/add как variantId.
+    // Для товара без строк вариантов (старого или изменённого импортом) первый вызов создаёт их в БД
+    @GetMapping("/{id}/variants")
+    public List<ProductVariant> getVariants(@PathVariable Long id) {
+        return productService.getVariants(id);
+    }
+
+    // ✅ только ADMIN: счётчики кэша каталога
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/cache-stats")
+    public CatalogCacheStatsDto getCacheStats() {
+        return productService.getCacheStats();
     }
 
     // ✅ только ADMIN
@@ -31,6 +119,67 @@ public class ProductController {
         return productService.addProduct(product);
     }
 
+    // ✅ только ADMIN: массовый импорт по sku — тело читается потоком (text/csv или application/x-ndjson)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/import")
+    public ProductImportResultDto importProducts(InputStream body,
+                                                 @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                                 @RequestParam(required = false) String format) throws IOException {
+        String resolved = format != null ? format
+                : (contentType != null && contentType.contains("ndjson") ? ProductImportService.FORMAT_NDJSON
+                : ProductImportService.FORMAT_CSV);
+        try (body) {
+            return productImportService.importProducts(body, resolved);
+        }
+    }
+
+    // ✅ только ADMIN: выгрузка всего каталога потоком (/api/products/export?format=csv|ndjson);
+    // при Accept-Encoding: gzip сжимается на лету
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        String resolved = ProductExportService.normalizeFormat(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        // при занятых слотах — 429 здесь, пока заголовки выгрузки ещё не выставлены
+        ProductExportService.Slot slot = productExportService.acquireSlot();
+        // тело может так и не запуститься (таймаут, обрыв соединения) — тогда слот вернёт завершение запроса
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(slot, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest r, Callable<T> task) {
+                slot.close();
+            }
+        });
+
+        StreamingResponseBody body = out -> {
+            try (slot) {
+                if (gzip) {
+                    GZIPOutputStream zip = new GZIPOutputStream(out, 8192);
+                    productExportService.exportProducts(resolved, zip);
+                    zip.finish();
+                } else {
+                    productExportService.exportProducts(resolved, out);
+                }
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(ProductExportService.FORMAT_NDJSON.equals(resolved)
+                        ? MediaType.parseMediaType("application/x-ndjson;charset=UTF-8")
+                        : MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("products." + resolved).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.noStore());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     // ✅ только ADMIN
     @PreAuthorize("hasRole('ADMIN')")
     @PutMapping("/{id}")
@@ -40,7 +189,6 @@ public class ProductController {
 
     // ✅ только ADMIN
     @PreAuthorize("hasRole('ADMIN')")
-    @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/{id}")
     public void deleteProduct(@PathVariable Long id) {
         productService.deleteProduct(id);
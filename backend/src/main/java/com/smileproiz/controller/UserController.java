@@ -3,8 +3,10 @@ package com.smileproiz.controller;
 import com.smileproiz.dto.*;
 import com.smileproiz.model.User;
 import com.smileproiz.service.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/api/users")
@@ -36,9 +38,14 @@ public class UserController {
 
     // ✅ Регистрация
  @PostMapping("/register")
-public ApiResponse<UserResponseDto> register(@RequestBody User user) {
-    User savedUser = userService.registerUser(user);
-    return new ApiResponse<>(true, "Регистрация успешна ✅", toDto(savedUser));
+public ResponseEntity<ApiResponse<UserResponseDto>> register(@RequestBody User user) {
+    try {
+        User savedUser = userService.registerUser(user);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Регистрация успешна ✅", toDto(savedUser)));
+    } catch (ResponseStatusException e) {
+        // 503 от пула BCrypt — регистрацию можно повторить чуть позже
+        return busy(e);
+    }
 }
 
     // ✅ Логин -> token + user
@@ -48,17 +55,25 @@ public ApiResponse<UserResponseDto> register(@RequestBody User user) {
             String email = request.getEmail().trim().toLowerCase();
             String password = request.getPassword();
 
-            String token = userService.loginAndGetToken(email, password);
-            User user = userService.findByEmail(email);
+            UserService.LoginResult login = userService.login(email, password);
 
-            AuthResponseDto payload = new AuthResponseDto(token, toDto(user));
+            AuthResponseDto payload = new AuthResponseDto(login.token(), toDto(login.user()));
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Успешный вход", payload));
+        } catch (ResponseStatusException e) {
+            // 429/503 от пула BCrypt — клиент повторит вход чуть позже
+            return busy(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ApiResponse<>(false, e.getMessage(), null));
         }
     }
 
+    private static <T> ResponseEntity<ApiResponse<T>> busy(ResponseStatusException e) {
+        return ResponseEntity.status(e.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse<>(false, e.getReason(), null));
+    }
+
     // 🔔 Обновление push-настроек
     @PutMapping("/{id}/push-setting")
     public ResponseEntity<ApiResponse<Void>> updatePushSetting(
@@ -91,6 +106,9 @@ public ApiResponse<UserResponseDto> register(@RequestBody User user) {
         try {
             User updated = userService.updateUser(id, dto);
             return ResponseEntity.ok(new ApiResponse<>(true, "Пользователь обновлён", toDto(updated)));
+        } catch (ResponseStatusException e) {
+            // 503 от пула BCrypt при смене пароля — не ошибка запроса
+            return busy(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ApiResponse<>(false, e.getMessage(), null));
         }
@@ -2,6 +2,7 @@ package com.smileproiz.dto;
 
 public class AddToCartDto {
     private Long productId;
+    private Long variantId; // если передан — selectedSize/selectedColor не нужны
     private int quantity;
     private String selectedSize;
     private String selectedColor;
@@ -15,6 +16,14 @@ public class AddToCartDto {
         this.productId = productId;
     }
 
+    public Long getVariantId() {
+        return variantId;
+    }
+
+    public void setVariantId(Long variantId) {
+        this.variantId = variantId;
+    }
+
     public int getQuantity() {
         return quantity;
     }
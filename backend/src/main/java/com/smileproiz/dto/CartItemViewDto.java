@@ -0,0 +1,64 @@
+package com.smileproiz.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.smileproiz.model.CartItem;
+import com.smileproiz.model.Product;
+
+/**
+ * Строка корзины для GET /api/cart/all.
+ * Собирается одним SQL (cart_items JOIN products) — см. CartRepository.findViewByUserId.
+ * JSON совпадает по форме с CartItem: товар вложен в "product", клиентам менять ничего не нужно.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CartItemViewDto {
+    private Long id;
+    private Long variantId;
+    private int quantity;
+    private String selectedSize;
+    private String selectedColor;
+    private Integer price;
+    private CartProductDto product;
+
+    public CartItemViewDto() {}
+
+    // конструктор для JPQL "SELECT new ..."
+    public CartItemViewDto(Long id, Long variantId, int quantity, String selectedSize, String selectedColor,
+                           Integer price, Long productId, String productName, int productPrice,
+                           String productImageUrl) {
+        this.id = id;
+        this.variantId = variantId;
+        this.quantity = quantity;
+        this.selectedSize = selectedSize;
+        this.selectedColor = selectedColor;
+        this.price = price;
+        this.product = new CartProductDto(productId, productName, productPrice, productImageUrl);
+    }
+
+    public static CartItemViewDto from(CartItem item) {
+        Product p = item.getProduct();
+        return new CartItemViewDto(item.getId(), item.getVariantId(), item.getQuantity(),
+                item.getSelectedSize(), item.getSelectedColor(), item.getPrice(),
+                p.getId(), p.getName(), p.getPrice(), p.getImageUrl());
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getVariantId() { return variantId; }
+    public void setVariantId(Long variantId) { this.variantId = variantId; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public String getSelectedSize() { return selectedSize; }
+    public void setSelectedSize(String selectedSize) { this.selectedSize = selectedSize; }
+
+    public String getSelectedColor() { return selectedColor; }
+    public void setSelectedColor(String selectedColor) { this.selectedColor = selectedColor; }
+
+    public Integer getPrice() { return price; }
+    public void setPrice(Integer price) { this.price = price; }
+
+    public CartProductDto getProduct() { return product; }
+    public void setProduct(CartProductDto product) { this.product = product; }
+}
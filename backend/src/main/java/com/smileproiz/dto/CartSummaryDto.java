@@ -0,0 +1,24 @@
+package com.smileproiz.dto;
+
+public class CartSummaryDto {
+    private long lines;      // сколько разных позиций
+    private long itemCount;  // сколько штук всего (для бейджа)
+    private long total;      // сумма, ₸
+
+    public CartSummaryDto() {}
+
+    public CartSummaryDto(long lines, long itemCount, long total) {
+        this.lines = lines;
+        this.itemCount = itemCount;
+        this.total = total;
+    }
+
+    public long getLines() { return lines; }
+    public void setLines(long lines) { this.lines = lines; }
+
+    public long getItemCount() { return itemCount; }
+    public void setItemCount(long itemCount) { this.itemCount = itemCount; }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+}
@@ -0,0 +1,38 @@
+package com.smileproiz.dto;
+
+import java.util.List;
+
+/**
+ * Сообщение в /ws/cart после изменения корзины (несколько изменений подряд склеиваются в одно).
+ * Применять по порядку: cleared → убрать всё; removed → удалить строки по id; items → добавить/заменить по id.
+ */
+public class CartUpdateMessage {
+    private final String type = "cart_update"; // по этому полю клиент узнаёт сообщение
+    private boolean cleared;
+    private List<Long> removed;
+    private List<CartItemViewDto> items;
+    private CartSummaryDto summary;
+
+    public CartUpdateMessage() {}
+
+    public CartUpdateMessage(boolean cleared, List<Long> removed, List<CartItemViewDto> items, CartSummaryDto summary) {
+        this.cleared = cleared;
+        this.removed = removed;
+        this.items = items;
+        this.summary = summary;
+    }
+
+    public String getType() { return type; }
+
+    public boolean isCleared() { return cleared; }
+    public void setCleared(boolean cleared) { this.cleared = cleared; }
+
+    public List<Long> getRemoved() { return removed; }
+    public void setRemoved(List<Long> removed) { this.removed = removed; }
+
+    public List<CartItemViewDto> getItems() { return items; }
+    public void setItems(List<CartItemViewDto> items) { this.items = items; }
+
+    public CartSummaryDto getSummary() { return summary; }
+    public void setSummary(CartSummaryDto summary) { this.summary = summary; }
+}
@@ -0,0 +1,39 @@
+package com.smileproiz.dto;
+
+public class CatalogCacheStatsDto {
+    private long hits;
+    private long misses;
+    private long rebuilds;
+    private long version;
+    private int size;
+    private long ageMs; // -1 — снимка сейчас нет
+
+    public CatalogCacheStatsDto() {}
+
+    public CatalogCacheStatsDto(long hits, long misses, long rebuilds, long version, int size, long ageMs) {
+        this.hits = hits;
+        this.misses = misses;
+        this.rebuilds = rebuilds;
+        this.version = version;
+        this.size = size;
+        this.ageMs = ageMs;
+    }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getRebuilds() { return rebuilds; }
+    public void setRebuilds(long rebuilds) { this.rebuilds = rebuilds; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public long getAgeMs() { return ageMs; }
+    public void setAgeMs(long ageMs) { this.ageMs = ageMs; }
+}
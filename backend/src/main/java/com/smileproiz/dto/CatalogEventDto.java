@@ -0,0 +1,45 @@
+package com.smileproiz.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.smileproiz.model.Product;
+
+import java.util.Map;
+
+/**
+ * Изменение одного товара для /ws/catalog.
+ * created — товар целиком; updated — только изменившиеся поля (например {"price":5000,"inStock":false});
+ * deleted — только id; reload — изменилось много товаров сразу (импорт), каталог нужно перечитать.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CatalogEventDto {
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    public static final String RELOAD = "reload";
+
+    private String op;
+    private Long id;
+    private Product product;
+    private Map<String, Object> changes;
+
+    public CatalogEventDto() {}
+
+    public CatalogEventDto(String op, Long id, Product product, Map<String, Object> changes) {
+        this.op = op;
+        this.id = id;
+        this.product = product;
+        this.changes = changes;
+    }
+
+    public String getOp() { return op; }
+    public void setOp(String op) { this.op = op; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Product getProduct() { return product; }
+    public void setProduct(Product product) { this.product = product; }
+
+    public Map<String, Object> getChanges() { return changes; }
+    public void setChanges(Map<String, Object> changes) { this.changes = changes; }
+}
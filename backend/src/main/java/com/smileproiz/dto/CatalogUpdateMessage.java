@@ -0,0 +1,28 @@
+package com.smileproiz.dto;
+
+import java.util.List;
+
+/**
+ * Сообщение в /ws/catalog: изменения каталога за короткое окно одной пачкой.
+ * version — номер изменения каталога после них (тот же, что в /api/products/cache-stats).
+ */
+public class CatalogUpdateMessage {
+    private final String type = "catalog_update";
+    private long version;
+    private List<CatalogEventDto> events;
+
+    public CatalogUpdateMessage() {}
+
+    public CatalogUpdateMessage(long version, List<CatalogEventDto> events) {
+        this.version = version;
+        this.events = events;
+    }
+
+    public String getType() { return type; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public List<CatalogEventDto> getEvents() { return events; }
+    public void setEvents(List<CatalogEventDto> events) { this.events = events; }
+}
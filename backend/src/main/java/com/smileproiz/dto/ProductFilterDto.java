@@ -0,0 +1,43 @@
+package com.smileproiz.dto;
+
+import java.util.List;
+
+// Параметры /api/products/filter: внутри одного фасета значения через OR, между фасетами — AND
+public class ProductFilterDto {
+    private List<String> category;
+    private Boolean inStock;
+    private List<String> size;
+    private List<String> color;
+    private Integer minPrice;
+    private Integer maxPrice;
+    private String sort; // id (по умолчанию), price, price_desc
+    private Integer page;
+    private Integer limit;
+
+    public List<String> getCategory() { return category; }
+    public void setCategory(List<String> category) { this.category = category; }
+
+    public Boolean getInStock() { return inStock; }
+    public void setInStock(Boolean inStock) { this.inStock = inStock; }
+
+    public List<String> getSize() { return size; }
+    public void setSize(List<String> size) { this.size = size; }
+
+    public List<String> getColor() { return color; }
+    public void setColor(List<String> color) { this.color = color; }
+
+    public Integer getMinPrice() { return minPrice; }
+    public void setMinPrice(Integer minPrice) { this.minPrice = minPrice; }
+
+    public Integer getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(Integer maxPrice) { this.maxPrice = maxPrice; }
+
+    public String getSort() { return sort; }
+    public void setSort(String sort) { this.sort = sort; }
+
+    public Integer getPage() { return page; }
+    public void setPage(Integer page) { this.page = page; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+}
@@ -0,0 +1,42 @@
+package com.smileproiz.dto;
+
+import com.smileproiz.model.Product;
+
+import java.util.List;
+import java.util.Map;
+
+public class ProductFilterResultDto {
+    private List<Product> items;
+    private int total;
+    private int page;
+    private int limit;
+
+    // facet -> (значение -> сколько товаров), например "category" -> {"clothes": 4}
+    private Map<String, Map<String, Integer>> facets;
+
+    public ProductFilterResultDto() {}
+
+    public ProductFilterResultDto(List<Product> items, int total, int page, int limit,
+                                  Map<String, Map<String, Integer>> facets) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.limit = limit;
+        this.facets = facets;
+    }
+
+    public List<Product> getItems() { return items; }
+    public void setItems(List<Product> items) { this.items = items; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    public Map<String, Map<String, Integer>> getFacets() { return facets; }
+    public void setFacets(Map<String, Map<String, Integer>> facets) { this.facets = facets; }
+}
@@ -0,0 +1,70 @@
+package com.smileproiz.dto;
+
+import java.util.List;
+
+public class ProductImportResultDto {
+    private int rows;
+    private int inserted;
+    private int updated;
+    private int failed;
+    private List<RowError> errors;
+    private boolean errorsTruncated; // ошибок больше, чем отдаём в ответе
+    private String readError;        // файл прочитан не до конца: строки после этого места не импортированы
+
+    public static class RowError {
+        private int line;
+        private String sku;
+        private String message;
+
+        public RowError() {}
+
+        public RowError(int line, String sku, String message) {
+            this.line = line;
+            this.sku = sku;
+            this.message = message;
+        }
+
+        public int getLine() { return line; }
+        public void setLine(int line) { this.line = line; }
+
+        public String getSku() { return sku; }
+        public void setSku(String sku) { this.sku = sku; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    public ProductImportResultDto() {}
+
+    public ProductImportResultDto(int rows, int inserted, int updated, int failed,
+                                  List<RowError> errors, boolean errorsTruncated, String readError) {
+        this.rows = rows;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.failed = failed;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+        this.readError = readError;
+    }
+
+    public int getRows() { return rows; }
+    public void setRows(int rows) { this.rows = rows; }
+
+    public int getInserted() { return inserted; }
+    public void setInserted(int inserted) { this.inserted = inserted; }
+
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public List<RowError> getErrors() { return errors; }
+    public void setErrors(List<RowError> errors) { this.errors = errors; }
+
+    public boolean isErrorsTruncated() { return errorsTruncated; }
+    public void setErrorsTruncated(boolean errorsTruncated) { this.errorsTruncated = errorsTruncated; }
+
+    public String getReadError() { return readError; }
+    public void setReadError(String readError) { this.readError = readError; }
+}
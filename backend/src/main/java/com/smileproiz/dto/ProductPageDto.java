@@ -0,0 +1,28 @@
+package com.smileproiz.dto;
+
+import com.smileproiz.model.Product;
+
+import java.util.List;
+
+public class ProductPageDto {
+    private List<Product> items;
+    private String nextCursor; // null — это последняя страница
+    private boolean hasMore;
+
+    public ProductPageDto() {}
+
+    public ProductPageDto(List<Product> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    public List<Product> getItems() { return items; }
+    public void setItems(List<Product> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
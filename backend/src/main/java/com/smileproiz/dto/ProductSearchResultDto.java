@@ -0,0 +1,33 @@
+package com.smileproiz.dto;
+
+import com.smileproiz.model.Product;
+
+import java.util.List;
+
+public class ProductSearchResultDto {
+    private List<Product> items;
+    private int total;
+    private int page;
+    private int limit;
+
+    public ProductSearchResultDto() {}
+
+    public ProductSearchResultDto(List<Product> items, int total, int page, int limit) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.limit = limit;
+    }
+
+    public List<Product> getItems() { return items; }
+    public void setItems(List<Product> items) { this.items = items; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
@@ -0,0 +1,219 @@
+package com.smileproiz.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smileproiz.dto.CartItemViewDto;
+import com.smileproiz.dto.CartSummaryDto;
+import com.smileproiz.dto.CartUpdateMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Открытые /ws/cart сессии по пользователям и рассылка им изменений корзины.
+ * Изменения одного пользователя за coalesce-ms склеиваются в одно сообщение (по id строки — последнее состояние).
+ * У каждой сессии ограниченный буфер отправки: клиент, который не успевает читать, отключается,
+ * а не копит сообщения в памяти сервера.
+ */
+@Component
+public class CartSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CartSessionRegistry.class);
+
+    @Value("${app.ws.coalesce-ms:50}")
+    private long coalesceMs;
+
+    @Value("${app.ws.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.ws.send-buffer-bytes:65536}")
+    private int sendBufferBytes;
+
+    @Value("${app.ws.max-sessions-per-user:10}")
+    private int maxSessionsPerUser;
+
+    private final ObjectMapper objectMapper;
+
+    // списки не меняются на месте — только заменяются целиком (compute)
+    private final Map<Long, List<WebSocketSession>> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cart-ws-coalescer");
+        t.setDaemon(true);
+        return t;
+    });
+    // отправка может блокироваться на медленном клиенте — у каждой своя виртуальная нить
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    // id сессии -> последняя поставленная отправка: следующая ждёт её, так сообщения одной сессии идут по порядку
+    private final Map<String, CompletableFuture<Void>> sendChains = new ConcurrentHashMap<>();
+
+    public CartSessionRegistry(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        Gauge.builder("ws.sessions", this, CartSessionRegistry::getSessionCount)
+                .tag("endpoint", "cart").register(meterRegistry);
+        Gauge.builder("ws.users", sessions, Map::size).tag("endpoint", "cart").register(meterRegistry);
+    }
+
+    // Накопленные изменения пользователя до отправки
+    private static final class Pending {
+        boolean cleared;
+        final Set<Long> removed = new LinkedHashSet<>();
+        final Map<Long, CartItemViewDto> items = new LinkedHashMap<>();
+        CartSummaryDto summary;
+    }
+
+    // ================= SESSIONS =================
+
+    public WebSocketSession register(Long userId, WebSocketSession session) {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(
+                session, sendTimeLimitMs, sendBufferBytes, OverflowStrategy.TERMINATE);
+
+        List<WebSocketSession> overflow = new ArrayList<>();
+        sessions.compute(userId, (id, current) -> {
+            List<WebSocketSession> next = current == null ? new ArrayList<>() : new ArrayList<>(current);
+            next.add(decorated);
+            // слишком много устройств — закрываем самые старые сессии
+            while (next.size() > maxSessionsPerUser) {
+                overflow.add(next.remove(0));
+            }
+            return List.copyOf(next);
+        });
+
+        for (WebSocketSession old : overflow) {
+            close(old, CloseStatus.POLICY_VIOLATION.withReason("Too many sessions"));
+        }
+        return decorated;
+    }
+
+    public void unregister(Long userId, WebSocketSession session) {
+        sendChains.remove(session.getId());
+        sessions.computeIfPresent(userId, (id, current) -> {
+            List<WebSocketSession> next = current.stream()
+                    .filter(s -> !s.getId().equals(session.getId()))
+                    .toList();
+            return next.isEmpty() ? null : next;
+        });
+    }
+
+    public boolean hasSessions(Long userId) {
+        return sessions.containsKey(userId);
+    }
+
+    public int getSessionCount() {
+        return sessions.values().stream().mapToInt(List::size).sum();
+    }
+
+    // ================= PUBLISH =================
+
+    public void itemChanged(Long userId, CartItemViewDto item, CartSummaryDto summary) {
+        merge(userId, summary, p -> {
+            p.removed.remove(item.getId());
+            p.items.put(item.getId(), item);
+        });
+    }
+
+    public void itemRemoved(Long userId, Long itemId, CartSummaryDto summary) {
+        merge(userId, summary, p -> {
+            p.items.remove(itemId);
+            p.removed.add(itemId);
+        });
+    }
+
+    public void cleared(Long userId, CartSummaryDto summary) {
+        merge(userId, summary, p -> {
+            p.items.clear();
+            p.removed.clear();
+            p.cleared = true;
+        });
+    }
+
+    private void merge(Long userId, CartSummaryDto summary, Consumer<Pending> change) {
+        if (!hasSessions(userId)) return; // никто не слушает — нечего копить
+
+        pending.compute(userId, (id, p) -> {
+            if (p == null) {
+                p = new Pending();
+                scheduler.schedule(() -> flush(userId), coalesceMs, TimeUnit.MILLISECONDS);
+            }
+            change.accept(p);
+            p.summary = summary;
+            return p;
+        });
+    }
+
+    private void flush(Long userId) {
+        Pending p = pending.remove(userId);
+        List<WebSocketSession> targets = sessions.get(userId);
+        if (p == null || targets == null) return;
+
+        TextMessage message;
+        try {
+            message = new TextMessage(objectMapper.writeValueAsString(new CartUpdateMessage(
+                    p.cleared, List.copyOf(p.removed), List.copyOf(p.items.values()), p.summary)));
+        } catch (JsonProcessingException e) {
+            log.error("Cannot serialize cart update for user {}", userId, e);
+            return;
+        }
+
+        for (WebSocketSession session : targets) {
+            // после предыдущей отправки этой сессии: на медленном клиенте старое состояние не обгонит новое
+            sendChains.compute(session.getId(), (id, tail) ->
+                    (tail == null ? CompletableFuture.<Void>completedFuture(null) : tail)
+                            .thenRunAsync(() -> send(userId, session, message), senders));
+        }
+    }
+
+    private void send(Long userId, WebSocketSession session, TextMessage message) {
+        if (!session.isOpen()) {
+            unregister(userId, session);
+            return;
+        }
+        try {
+            // декоратор буферизует, пока идёт другая отправка; при переполнении/таймауте сам закрывает сессию
+            session.sendMessage(message);
+        } catch (IOException | RuntimeException e) {
+            log.info("Dropping cart websocket session {} of user {}: {}", session.getId(), userId, e.getMessage());
+            unregister(userId, session);
+            close(session, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private static void close(WebSocketSession session, CloseStatus status) {
+        try {
+            if (session.isOpen()) session.close(status);
+        } catch (IOException ignored) {
+            // сессия и так уже мертва
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        senders.shutdown();
+    }
+}
@@ -1,15 +1,56 @@
 package com.smileproiz.handler;
 
+import com.smileproiz.security.AuthenticatedUser;
+import com.smileproiz.security.JwtHandshakeInterceptor;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * /ws/cart: сервер сам присылает {"type":"cart_update", ...} после каждого изменения корзины пользователя
+ * (на все его устройства). Пользователь определяется при рукопожатии (JwtHandshakeInterceptor).
+ */
 public class CartWebSocketHandler extends TextWebSocketHandler {
 
+    private final CartSessionRegistry registry;
+
+    // id исходной сессии → обёртка с буфером отправки из реестра
+    private final Map<String, WebSocketSession> registered = new ConcurrentHashMap<>();
+
+    public CartWebSocketHandler(CartSessionRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        AuthenticatedUser user = userOf(session);
+        registered.put(session.getId(), registry.register(user.id(), session));
+    }
+
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        System.out.println("Получено сообщение: " + message.getPayload());
-        // Отправка подтверждения
-        session.sendMessage(new TextMessage("{\"status\":\"ok\"}"));
+        // клиенту нечего присылать, кроме проверки связи
+        WebSocketSession target = registered.getOrDefault(session.getId(), session);
+        if (message.getPayload().contains("\"ping\"")) {
+            target.sendMessage(new TextMessage("{\"type\":\"pong\"}"));
+        } else {
+            target.sendMessage(new TextMessage("{\"status\":\"ok\"}"));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        WebSocketSession decorated = registered.remove(session.getId());
+        if (decorated != null) {
+            registry.unregister(userOf(session).id(), decorated);
+        }
+    }
+
+    private static AuthenticatedUser userOf(WebSocketSession session) {
+        return (AuthenticatedUser) session.getAttributes().get(JwtHandshakeInterceptor.USER_ATTRIBUTE);
     }
 }
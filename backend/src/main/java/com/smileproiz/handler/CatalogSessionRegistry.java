@@ -0,0 +1,206 @@
+package com.smileproiz.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.smileproiz.dto.CatalogEventDto;
+import com.smileproiz.dto.CatalogUpdateMessage;
+import com.smileproiz.model.Product;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Подписчики /ws/catalog и рассылка им изменений каталога.
+ * ProductService только складывает событие в пачку (поток запроса не ждёт рассылку); раз в batch-ms
+ * пачка склеивается по id товара, сериализуется один раз и рассылается всем сессиям.
+ */
+@Component
+public class CatalogSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSessionRegistry.class);
+
+    @Value("${app.ws.catalog.batch-ms:200}")
+    private long batchMs;
+
+    @Value("${app.ws.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.ws.send-buffer-bytes:65536}")
+    private int sendBufferBytes;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    // события текущей пачки по id товара (в порядке появления)
+    private final ReentrantLock batchLock = new ReentrantLock();
+    private Map<Long, CatalogEventDto> batch = new LinkedHashMap<>();
+    private long batchVersion;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "catalog-ws-batcher");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    public CatalogSessionRegistry(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        Gauge.builder("ws.sessions", sessions, Map::size).tag("endpoint", "catalog").register(meterRegistry);
+    }
+
+    // ================= SESSIONS =================
+
+    public WebSocketSession register(WebSocketSession session) {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(
+                session, sendTimeLimitMs, sendBufferBytes, OverflowStrategy.TERMINATE);
+        sessions.put(session.getId(), decorated);
+        return decorated;
+    }
+
+    public void unregister(WebSocketSession session) {
+        sessions.remove(session.getId());
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    // ================= PUBLISH =================
+
+    public void created(Product product, long version) {
+        merge(product.getId(), new CatalogEventDto(CatalogEventDto.CREATED, product.getId(), product, null), version);
+    }
+
+    public void updated(Product product, Map<String, Object> changes, long version) {
+        if (changes.isEmpty()) return;
+        merge(product.getId(), new CatalogEventDto(CatalogEventDto.UPDATED, product.getId(), product, changes), version);
+    }
+
+    public void deleted(Long id, long version) {
+        merge(id, new CatalogEventDto(CatalogEventDto.DELETED, id, null, null), version);
+    }
+
+    // Массовое изменение (импорт): вместо тысяч событий — одно «перечитайте каталог»
+    public void reload(long version) {
+        if (sessions.isEmpty()) return;
+
+        batchLock.lock();
+        try {
+            if (batch.isEmpty()) {
+                scheduler.schedule(this::flush, batchMs, TimeUnit.MILLISECONDS);
+            }
+            batchVersion = Math.max(batchVersion, version);
+            batch.clear(); // всё, что было до перезагрузки, клиент и так получит из каталога
+            batch.put(null, new CatalogEventDto(CatalogEventDto.RELOAD, null, null, null));
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    private void merge(Long id, CatalogEventDto event, long version) {
+        if (sessions.isEmpty()) return; // никто не подписан
+
+        batchLock.lock();
+        try {
+            if (batch.isEmpty()) {
+                scheduler.schedule(this::flush, batchMs, TimeUnit.MILLISECONDS);
+            }
+            batchVersion = Math.max(batchVersion, version);
+
+            CatalogEventDto previous = batch.get(id);
+            if (previous == null) {
+                batch.put(id, event);
+            } else if (CatalogEventDto.DELETED.equals(event.getOp())) {
+                // создан и удалён в одном окне — клиенту не о чем сообщать
+                if (CatalogEventDto.CREATED.equals(previous.getOp())) batch.remove(id);
+                else batch.put(id, event);
+            } else if (CatalogEventDto.CREATED.equals(previous.getOp())) {
+                previous.setProduct(event.getProduct()); // новый товар уходит целиком в последнем виде
+            } else {
+                Map<String, Object> changes = new LinkedHashMap<>(previous.getChanges());
+                changes.putAll(event.getChanges());
+                previous.setChanges(changes);
+            }
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    private void flush() {
+        Map<Long, CatalogEventDto> events;
+        long version;
+        batchLock.lock();
+        try {
+            events = batch;
+            version = batchVersion;
+            batch = new LinkedHashMap<>();
+        } finally {
+            batchLock.unlock();
+        }
+        if (events.isEmpty()) return;
+
+        // у updated товар внутри не нужен — только изменившиеся поля
+        for (CatalogEventDto e : events.values()) {
+            if (CatalogEventDto.UPDATED.equals(e.getOp())) e.setProduct(null);
+        }
+
+        TextMessage message;
+        try {
+            message = new TextMessage(objectMapper.writeValueAsString(
+                    new CatalogUpdateMessage(version, List.copyOf(events.values()))));
+        } catch (JsonProcessingException e) {
+            log.error("Cannot serialize catalog update", e);
+            return;
+        }
+
+        for (WebSocketSession session : sessions.values()) {
+            senders.execute(() -> send(session, message));
+        }
+        log.debug("Catalog update sent: version={}, events={}, sessions={}", version, events.size(), sessions.size());
+    }
+
+    private void send(WebSocketSession session, TextMessage message) {
+        if (!session.isOpen()) {
+            unregister(session);
+            return;
+        }
+        try {
+            session.sendMessage(message);
+        } catch (IOException | RuntimeException e) {
+            log.info("Dropping catalog websocket session {}: {}", session.getId(), e.getMessage());
+            unregister(session);
+            try {
+                if (session.isOpen()) session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ignored) {
+                // сессия и так уже мертва
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,42 @@
+package com.smileproiz.handler;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * /ws/catalog: сервер рассылает {"type":"catalog_update", ...} после изменений товаров
+ * (цена, наличие, новые и удалённые товары) — вместо периодической перезагрузки каталога.
+ */
+public class CatalogWebSocketHandler extends TextWebSocketHandler {
+
+    private final CatalogSessionRegistry registry;
+
+    private final Map<String, WebSocketSession> registered = new ConcurrentHashMap<>();
+
+    public CatalogWebSocketHandler(CatalogSessionRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        registered.put(session.getId(), registry.register(session));
+    }
+
+    @Override
+    public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        if (message.getPayload().contains("\"ping\"")) {
+            registered.getOrDefault(session.getId(), session).sendMessage(new TextMessage("{\"type\":\"pong\"}"));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        registered.remove(session.getId());
+        registry.unregister(session);
+    }
+}
@@ -1,16 +1,24 @@
 package com.smileproiz.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = {
+        // ✅ одна строка на (пользователь, товар, размер, цвет) — на этом ключе работает upsert в CartRepository
+        @UniqueConstraint(name = "uk_cart_items_user_product_size_color",
+                columnNames = {"user_id", "product_id", "selected_size", "selected_color"})
+})
 public class CartItem {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    // ✅ Владелец корзины
+    // ✅ Владелец корзины (в JSON не отдаём: это ленивый прокси, и в нём хэш пароля)
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -20,6 +28,10 @@ public class CartItem {
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
+    // ✅ Вариант товара (размер × цвет); selectedSize/selectedColor оставлены для старых клиентов
+    @Column(name = "variant_id")
+    private Long variantId;
+
     private int quantity;
     private String selectedSize;
     private String selectedColor;
@@ -39,6 +51,7 @@ public class CartItem {
     }
 
     public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
 
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
@@ -46,6 +59,9 @@ public class CartItem {
     public Product getProduct() { return product; }
     public void setProduct(Product product) { this.product = product; }
 
+    public Long getVariantId() { return variantId; }
+    public void setVariantId(Long variantId) { this.variantId = variantId; }
+
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
 
@@ -1,15 +1,29 @@
 package com.smileproiz.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
 
+// ✅ пустые поля (description, material, heights, ...) в ответ не попадают — у клиента они и так null
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // ✅ под keyset-пагинацию каталога (сортировка по цене / имени + id)
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_name_id", columnList = "name, id"),
+        @Index(name = "idx_products_category", columnList = "category")
+}, uniqueConstraints = {
+        // ✅ артикул — ключ массового импорта (POST /api/products/import); у товаров из админки может быть пустым
+        @UniqueConstraint(name = "uk_products_sku", columnNames = "sku")
+})
 public class Product {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(length = 64)
+    private String sku;
+
     private String name;
     private int price;
 
@@ -50,6 +64,7 @@ public class Product {
     }
 
     public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
 
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
@@ -69,6 +84,9 @@ public class Product {
     public String getMaterial() { return material; }
     public void setMaterial(String material) { this.material = material; }
 
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+
     public String getTag() { return tag; }
     public void setTag(String tag) { this.tag = tag; }
 
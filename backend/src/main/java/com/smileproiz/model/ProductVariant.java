@@ -0,0 +1,51 @@
+package com.smileproiz.model;
+
+import jakarta.persistence.*;
+
+// Вариант товара: товар × размер × цвет. Строки CSV из Product разбираются в варианты один раз при сохранении товара.
+@Entity
+@Table(name = "product_variants", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_variants_product_size_color",
+                columnNames = {"product_id", "size", "color"})
+})
+public class ProductVariant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private String size;
+
+    @Column(nullable = false)
+    private String color;
+
+    // варианты не удаляются, а выключаются: на них могут ссылаться строки корзины
+    @Column(nullable = false)
+    private boolean active = true;
+
+    public ProductVariant() {}
+
+    public ProductVariant(Long productId, String size, String color) {
+        this.productId = productId;
+        this.size = size;
+        this.color = color;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public String getSize() { return size; }
+    public void setSize(String size) { this.size = size; }
+
+    public String getColor() { return color; }
+    public void setColor(String color) { this.color = color; }
+
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+}
@@ -32,6 +32,10 @@ public class User {
     @Column(nullable = false)
     private String role = "user"; // по умолчанию обычный пользователь
 
+    // 🔐 Версия токенов: растёт при смене пароля, токены со старой версией отклоняются
+    @Column(name = "token_version")
+    private Integer tokenVersion = 0;
+
     public User() {
     }
 
@@ -97,4 +101,12 @@ public class User {
     public void setRole(String role) {
         this.role = role;
     }
+
+    public int getTokenVersion() {
+        return tokenVersion == null ? 0 : tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.smileproiz.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Обёртка над пулом соединений: каждое выполнение Statement/PreparedStatement засчитывается в SqlStats.
+ * Видит и Hibernate, и JdbcTemplate. executeBatch — один запрос (пачка уходит в БД одним обращением).
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    public QueryCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private static Connection wrapConnection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    String name = method.getName();
+                    if (result instanceof CallableStatement cs && name.equals("prepareCall")) {
+                        return wrapStatement(cs, CallableStatement.class, (String) args[0]);
+                    }
+                    if (result instanceof PreparedStatement ps && name.equals("prepareStatement")) {
+                        return wrapStatement(ps, PreparedStatement.class, (String) args[0]);
+                    }
+                    if (result instanceof Statement st && name.equals("createStatement")) {
+                        return wrapStatement(st, Statement.class, null);
+                    }
+                    return result;
+                });
+    }
+
+    // preparedSql == null — обычный Statement, текст запроса приходит аргументом execute*(sql)
+    private static Object wrapStatement(Statement target, Class<? extends Statement> type, String preparedSql) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute") || !SqlStats.active()) {
+                return invoke(target, method, args);
+            }
+            String sql = preparedSql != null ? preparedSql
+                    : (args != null && args.length > 0 && args[0] instanceof String s ? s : "<batch>");
+            long started = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } finally {
+                SqlStats.record(sql, System.nanoTime() - started);
+            }
+        };
+        return Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
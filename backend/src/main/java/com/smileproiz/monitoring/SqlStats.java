@@ -0,0 +1,80 @@
+package com.smileproiz.monitoring;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Счётчик SQL-запросов текущего потока: сколько выполнено, сколько времени заняли и какие повторялись.
+ * Область открывает SqlStatsFilter на HTTP-запрос (или тест через QueryBudget); области вложенные —
+ * запрос засчитывается во все открытые. Вне области запросы не считаются вовсе.
+ */
+public final class SqlStats {
+
+    // разных текстов SQL на одну область — хватает с запасом, защита от роста памяти на необычных запросах
+    private static final int MAX_DISTINCT_STATEMENTS = 256;
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private SqlStats() {}
+
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static boolean active() {
+        return CURRENT.get() != null;
+    }
+
+    static void record(String sql, long nanos) {
+        for (Scope s = CURRENT.get(); s != null; s = s.parent) {
+            s.add(sql, nanos);
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Scope parent;
+        private int queryCount;
+        private long nanos;
+        private final Map<String, Integer> bySql = new HashMap<>();
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private void add(String sql, long elapsed) {
+            queryCount++;
+            nanos += elapsed;
+            if (bySql.containsKey(sql) || bySql.size() < MAX_DISTINCT_STATEMENTS) {
+                bySql.merge(sql, 1, Integer::sum);
+            }
+        }
+
+        public int getQueryCount() { return queryCount; }
+
+        public long getElapsedMillis() { return nanos / 1_000_000; }
+
+        // Один и тот же SQL (с разными параметрами) не меньше threshold раз — похоже на N+1
+        public Map<String, Integer> repeated(int threshold) {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            bySql.entrySet().stream()
+                    .filter(e -> e.getValue() >= threshold)
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(e -> result.put(e.getKey(), e.getValue()));
+            return result;
+        }
+
+        public Map<String, Integer> statements() {
+            return Collections.unmodifiableMap(bySql);
+        }
+
+        @Override
+        public void close() {
+            CURRENT.set(parent);
+            if (parent == null) CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.smileproiz.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Считает SQL на каждый HTTP-запрос (включая проверку токена в фильтрах безопасности).
+ * В DEBUG — строка на каждый запрос, в WARN — запросы сверх warn-queries и подозрения на N+1.
+ * В метриках: http.server.sql.queries (распределение числа SQL) и sql.n_plus_one по шаблону URI.
+ */
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatsFilter.class);
+
+    private final int warnQueries;
+    private final int nPlusOneThreshold;
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatsFilter(int warnQueries, int nPlusOneThreshold, MeterRegistry meterRegistry) {
+        this.warnQueries = warnQueries;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (SqlStats.Scope scope = SqlStats.open()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                report(request, response, scope);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, HttpServletResponse response, SqlStats.Scope scope) {
+        int count = scope.getQueryCount();
+        // шаблон (/api/cart/update/{id}), а не сам путь — иначе число серий растёт с каждым id
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("http.server.sql.queries")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(count);
+        if (count == 0) return;
+
+        Map<String, Integer> repeated = scope.repeated(nPlusOneThreshold);
+        if (!repeated.isEmpty()) {
+            Counter.builder("sql.n_plus_one").tag("method", request.getMethod()).tag("uri", uri)
+                    .register(meterRegistry).increment();
+        }
+        if (count > warnQueries || !repeated.isEmpty()) {
+            log.warn("SQL {} {} -> {}: {} queries, {} ms in DB{}",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(), count,
+                    scope.getElapsedMillis(), repeated.isEmpty() ? "" : ", possible N+1: " + repeated);
+        } else if (log.isDebugEnabled()) {
+            log.debug("SQL {} {} -> {}: {} queries, {} ms in DB",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(), count, scope.getElapsedMillis());
+        }
+    }
+}
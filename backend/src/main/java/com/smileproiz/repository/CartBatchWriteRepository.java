@@ -0,0 +1,13 @@
+package com.smileproiz.repository;
+
+import java.util.List;
+
+// Пакетная запись накопленных изменений корзин (реализация — CartBatchWriteRepositoryImpl)
+public interface CartBatchWriteRepository {
+
+    record QuantityUpdate(Long id, int quantity) {}
+
+    void batchUpdateQuantities(List<QuantityUpdate> updates);
+
+    void batchDelete(List<Long> ids);
+}
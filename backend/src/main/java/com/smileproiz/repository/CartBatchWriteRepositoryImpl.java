@@ -0,0 +1,33 @@
+package com.smileproiz.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class CartBatchWriteRepositoryImpl implements CartBatchWriteRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CartBatchWriteRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void batchUpdateQuantities(List<QuantityUpdate> updates) {
+        if (updates.isEmpty()) return;
+        jdbcTemplate.batchUpdate("UPDATE cart_items SET quantity = ? WHERE id = ?", updates, BATCH_SIZE,
+                (ps, u) -> {
+                    ps.setInt(1, u.quantity());
+                    ps.setLong(2, u.id());
+                });
+    }
+
+    @Override
+    public void batchDelete(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        jdbcTemplate.batchUpdate("DELETE FROM cart_items WHERE id = ?", ids, BATCH_SIZE,
+                (ps, id) -> ps.setLong(1, id));
+    }
+}
@@ -1,22 +1,55 @@
 package com.smileproiz.repository;
 
+import com.smileproiz.dto.CartItemViewDto;
+import com.smileproiz.dto.CartSummaryDto;
 import com.smileproiz.model.CartItem;
-import com.smileproiz.model.Product;
-import com.smileproiz.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface CartRepository extends JpaRepository<CartItem, Long> {
+public interface CartRepository extends JpaRepository<CartItem, Long>, CartUpsertRepository, CartBatchWriteRepository {
 
-    List<CartItem> findByUser(User user);
+    // ✅ по id пользователя из токена — без загрузки User; товары тем же запросом, а не select на каждый
+    @Query("SELECT c FROM CartItem c JOIN FETCH c.product WHERE c.user.id = :userId ORDER BY c.id")
+    List<CartItem> findByUserId(@Param("userId") Long userId);
 
-    Optional<CartItem> findByUserAndProductAndSelectedSizeAndSelectedColor(
-            User user, Product product, String selectedSize, String selectedColor
-    );
+    // ✅ просмотр корзины: один SQL и только нужные колонки товара, без сущностей
+    @Query("SELECT new com.smileproiz.dto.CartItemViewDto(c.id, c.variantId, c.quantity, c.selectedSize, " +
+            "c.selectedColor, c.price, p.id, p.name, p.price, p.imageUrl) " +
+            "FROM CartItem c JOIN c.product p WHERE c.user.id = :userId ORDER BY c.id")
+    List<CartItemViewDto> findViewByUserId(@Param("userId") Long userId);
 
-    void deleteByUser(User user);
+    // итог корзины одним агрегатом — нужен только при промахе CartSummaryRegistry
+    @Query("SELECT new com.smileproiz.dto.CartSummaryDto(COUNT(c), COALESCE(SUM(c.quantity), 0L), " +
+            "COALESCE(SUM(c.price * c.quantity), 0L)) FROM CartItem c WHERE c.user.id = :userId")
+    CartSummaryDto summarizeByUserId(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.user.id = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+
+    // ✅ строка уже загружена и проверена — одним UPDATE/DELETE, без повторного select, который делают save()/delete()
+    @Transactional
+    @Modifying
+    @Query("UPDATE CartItem c SET c.quantity = :quantity WHERE c.id = :id")
+    int updateQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Меняет количество, только если в строке всё ещё expected: 0 строк — параллельный запрос успел раньше
+    @Transactional
+    @Modifying
+    @Query("UPDATE CartItem c SET c.quantity = :quantity WHERE c.id = :id AND c.quantity = :expected")
+    int updateQuantityIfUnchanged(@Param("id") Long id, @Param("expected") int expected,
+                                  @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.id = :id")
+    int deleteItemById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.smileproiz.repository;
+
+// Атомарное добавление в корзину одним SQL-запросом (реализация — CartUpsertRepositoryImpl)
+public interface CartUpsertRepository {
+
+    record UpsertResult(Long id, int quantity, int price) {}
+
+    // Новая строка или quantity = quantity + N для той же (user, product, size, color)
+    UpsertResult upsertItem(Long userId, Long productId, Long variantId,
+                            String selectedSize, String selectedColor, int quantity, int price);
+}
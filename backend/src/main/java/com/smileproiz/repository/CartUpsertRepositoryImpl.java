@@ -0,0 +1,69 @@
+package com.smileproiz.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * PostgreSQL: INSERT ... ON CONFLICT DO UPDATE — атомарно, без гонок между параллельными add.
+ * H2 (тесты): MERGE ... USING; при одновременной вставке одной строки проигравший получает
+ * нарушение уникального ключа и повторяет запрос — теперь уже как UPDATE.
+ */
+public class CartUpsertRepositoryImpl implements CartUpsertRepository {
+
+    private static final String POSTGRES_UPSERT = """
+            INSERT INTO cart_items (user_id, product_id, variant_id, selected_size, selected_color, quantity, price)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, product_id, selected_size, selected_color)
+            DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity, variant_id = EXCLUDED.variant_id
+            RETURNING id, quantity, price
+            """;
+
+    private static final String STANDARD_MERGE = """
+            SELECT id, quantity, price FROM FINAL TABLE (
+                MERGE INTO cart_items t
+                USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT),
+                               CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS INT), CAST(? AS INT)))
+                    AS s (user_id, product_id, variant_id, selected_size, selected_color, quantity, price)
+                ON t.user_id = s.user_id AND t.product_id = s.product_id
+                    AND t.selected_size = s.selected_size AND t.selected_color = s.selected_color
+                WHEN MATCHED THEN
+                    UPDATE SET quantity = t.quantity + s.quantity, variant_id = s.variant_id
+                WHEN NOT MATCHED THEN
+                    INSERT (user_id, product_id, variant_id, selected_size, selected_color, quantity, price)
+                    VALUES (s.user_id, s.product_id, s.variant_id, s.selected_size, s.selected_color, s.quantity, s.price)
+            )
+            """;
+
+    private static final RowMapper<UpsertResult> RESULT = (rs, n) ->
+            new UpsertResult(rs.getLong("id"), rs.getInt("quantity"), rs.getInt("price"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String upsertSql;
+
+    public CartUpsertRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public UpsertResult upsertItem(Long userId, Long productId, Long variantId,
+                                   String selectedSize, String selectedColor, int quantity, int price) {
+        Object[] args = {userId, productId, variantId, selectedSize, selectedColor, quantity, price};
+        try {
+            return jdbcTemplate.queryForObject(sql(), RESULT, args);
+        } catch (DuplicateKeyException e) {
+            return jdbcTemplate.queryForObject(sql(), RESULT, args);
+        }
+    }
+
+    private String sql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            sql = "PostgreSQL".equalsIgnoreCase(product) ? POSTGRES_UPSERT : STANDARD_MERGE;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,13 @@
+package com.smileproiz.repository;
+
+import com.smileproiz.model.Product;
+
+import java.util.function.Consumer;
+
+// Потоковое чтение всего каталога для экспорта (реализация на JdbcTemplate)
+public interface ProductExportRepository {
+
+    // Товары по возрастанию id через курсор БД: в памяти только текущая порция fetch-size.
+    // Объекты Product — обычные POJO, в контекст персистентности не попадают. Вызывать внутри транзакции.
+    void streamAll(Consumer<Product> consumer);
+}
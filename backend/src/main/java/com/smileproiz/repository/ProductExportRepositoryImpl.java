@@ -0,0 +1,45 @@
+package com.smileproiz.repository;
+
+import com.smileproiz.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+public class ProductExportRepositoryImpl implements ProductExportRepository {
+
+    private static final String SELECT_ALL = "SELECT id, sku, name, price, image_url, category, description, material, " +
+            "tag, in_stock, size, heights, color, colors FROM products ORDER BY id";
+
+    private final JdbcTemplate cursorTemplate;
+
+    public ProductExportRepositoryImpl(DataSource dataSource,
+                                       @Value("${app.catalog.export.fetch-size:1000}") int fetchSize) {
+        // отдельный шаблон: fetch size включает серверный курсор (Postgres — только внутри транзакции)
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+    }
+
+    @Override
+    public void streamAll(Consumer<Product> consumer) {
+        cursorTemplate.query(SELECT_ALL, rs -> {
+            Product p = new Product(
+                    rs.getString("name"),
+                    rs.getInt("price"),
+                    rs.getString("image_url"),
+                    rs.getString("category"),
+                    rs.getString("description"),
+                    rs.getString("material"),
+                    rs.getString("tag"),
+                    rs.getBoolean("in_stock"),
+                    rs.getString("size"),
+                    rs.getString("heights"),
+                    rs.getString("color"),
+                    rs.getString("colors"));
+            p.setId(rs.getLong("id"));
+            p.setSku(rs.getString("sku"));
+            consumer.accept(p);
+        });
+    }
+}
@@ -0,0 +1,19 @@
+package com.smileproiz.repository;
+
+import com.smileproiz.model.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Пакетная запись товаров для импорта (реализация на JdbcTemplate)
+public interface ProductImportRepository {
+
+    // sku -> id для уже существующих товаров
+    Map<String, Long> findIdsBySku(Collection<String> skus);
+
+    void batchInsert(List<Product> products);
+
+    // обновляет все поля товара по его sku
+    void batchUpdateBySku(List<Product> products);
+}
@@ -0,0 +1,72 @@
+package com.smileproiz.repository;
+
+import com.smileproiz.model.Product;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProductImportRepositoryImpl implements ProductImportRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT = "INSERT INTO products " +
+            "(name, price, image_url, category, description, material, tag, in_stock, size, heights, color, colors, sku) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE = "UPDATE products SET " +
+            "name = ?, price = ?, image_url = ?, category = ?, description = ?, material = ?, tag = ?, in_stock = ?, " +
+            "size = ?, heights = ?, color = ?, colors = ? WHERE sku = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductImportRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<String, Long> findIdsBySku(Collection<String> skus) {
+        Map<String, Long> ids = new HashMap<>();
+        if (skus.isEmpty()) return ids;
+
+        String placeholders = String.join(",", Collections.nCopies(skus.size(), "?"));
+        jdbcTemplate.query("SELECT id, sku FROM products WHERE sku IN (" + placeholders + ")",
+                rs -> { ids.put(rs.getString("sku"), rs.getLong("id")); },
+                skus.toArray());
+        return ids;
+    }
+
+    @Override
+    public void batchInsert(List<Product> products) {
+        if (products.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT, products, BATCH_SIZE, ProductImportRepositoryImpl::bind);
+    }
+
+    @Override
+    public void batchUpdateBySku(List<Product> products) {
+        if (products.isEmpty()) return;
+        jdbcTemplate.batchUpdate(UPDATE, products, BATCH_SIZE, ProductImportRepositoryImpl::bind);
+    }
+
+    // одинаковый порядок колонок в INSERT и UPDATE: поля товара, последним — sku
+    private static void bind(PreparedStatement ps, Product p) throws SQLException {
+        ps.setString(1, p.getName());
+        ps.setInt(2, p.getPrice());
+        ps.setString(3, p.getImageUrl());
+        ps.setString(4, p.getCategory());
+        ps.setString(5, p.getDescription());
+        ps.setString(6, p.getMaterial());
+        ps.setString(7, p.getTag());
+        ps.setBoolean(8, p.isInStock());
+        ps.setString(9, p.getSize());
+        ps.setString(10, p.getHeights());
+        ps.setString(11, p.getColor());
+        ps.setString(12, p.getColors());
+        ps.setString(13, p.getSku());
+    }
+}
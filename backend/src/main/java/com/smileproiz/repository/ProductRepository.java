@@ -1,9 +1,40 @@
 package com.smileproiz.repository;
 
 import com.smileproiz.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductImportRepository, ProductExportRepository {
+
+    // ✅ Keyset-пагинация: страница стоит одинаково на 1k и на 1M товаров (без OFFSET)
+
+    List<Product> findAllByOrderByIdAsc(Limit limit);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    List<Product> findAllByOrderByPriceAscIdAsc(Limit limit);
+
+    @Query("SELECT p FROM Product p " +
+            "WHERE p.price > :price OR (p.price = :price AND p.id > :afterId) " +
+            "ORDER BY p.price ASC, p.id ASC")
+    List<Product> findPageAfterPrice(@Param("price") int price, @Param("afterId") Long afterId, Limit limit);
+
+    // Товары без названия — в конце (NULLS LAST одинаково в PostgreSQL и H2), иначе сравнение p.name > :name их теряет
+
+    @Query("SELECT p FROM Product p ORDER BY p.name ASC NULLS LAST, p.id ASC")
+    List<Product> findFirstPageByName(Limit limit);
+
+    @Query("SELECT p FROM Product p " +
+            "WHERE p.name > :name OR (p.name = :name AND p.id > :afterId) OR p.name IS NULL " +
+            "ORDER BY p.name ASC NULLS LAST, p.id ASC")
+    List<Product> findPageAfterName(@Param("name") String name, @Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT p FROM Product p WHERE p.name IS NULL AND p.id > :afterId ORDER BY p.id ASC")
+    List<Product> findPageAfterNullName(@Param("afterId") Long afterId, Limit limit);
 }
@@ -0,0 +1,25 @@
+package com.smileproiz.repository;
+
+import com.smileproiz.model.ProductVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
+
+    List<ProductVariant> findByProductId(Long productId);
+
+    List<ProductVariant> findByProductIdIn(Collection<Long> productIds);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProductVariant v WHERE v.productId = :productId")
+    void deleteByProductId(@Param("productId") Long productId);
+}
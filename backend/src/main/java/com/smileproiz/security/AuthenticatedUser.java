@@ -0,0 +1,12 @@
+package com.smileproiz.security;
+
+import java.security.Principal;
+
+// Principal из JWT: id и роль берутся из токена, без загрузки User из БД
+public record AuthenticatedUser(Long id, String email, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,7 +1,5 @@
 package com.smileproiz.security;
 
-import com.smileproiz.repository.UserRepository;
-
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,18 +14,16 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final TokenAuthenticator tokenAuthenticator;
 
-    public JwtAuthFilter(JwtService jwtService, UserRepository userRepository) {
-        this.jwtService = jwtService;
-        this.userRepository = userRepository;
+    public JwtAuthFilter(TokenAuthenticator tokenAuthenticator) {
+        this.tokenAuthenticator = tokenAuthenticator;
     }
-
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getServletPath();
@@ -50,32 +46,21 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         String token = auth.substring(7);
 
-        if (!jwtService.isTokenValid(token)) {
-            SecurityContextHolder.clearContext();
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            return;
-        }
-
         if (SecurityContextHolder.getContext().getAuthentication() == null) {
-            String email = jwtService.extractEmail(token);
-
-            var userOpt = userRepository.findByEmail(email);
-            if (userOpt.isEmpty()) {
+            Optional<AuthenticatedUser> principal = tokenAuthenticator.authenticate(token);
+            if (principal.isEmpty()) {
                 SecurityContextHolder.clearContext();
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 return;
             }
 
-        String role = userOpt.get().getRole();
-        if (role == null || role.isBlank()) role = "USER";
-
-            var authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+            var authorities = List.of(new SimpleGrantedAuthority("ROLE_" + principal.get().role().toUpperCase()));
 
-            var authToken = new UsernamePasswordAuthenticationToken(email, null, authorities);
+            var authToken = new UsernamePasswordAuthenticationToken(principal.get(), null, authorities);
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
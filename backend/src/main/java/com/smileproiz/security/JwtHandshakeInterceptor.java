@@ -0,0 +1,72 @@
+package com.smileproiz.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 🔐 Проверка JWT при открытии /ws/cart и /ws/catalog. Токен — в заголовке Authorization (Bearer ...), а из браузера,
+ * где заголовки у WebSocket не задать, — парой подпротоколов "bearer", токен (Sec-WebSocket-Protocol;
+ * сервер отвечает подпротоколом "bearer"). В адресе токен не принимается: он попал бы в логи прокси и сервера.
+ * Без валидного токена рукопожатие отклоняется с 401.
+ */
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String USER_ATTRIBUTE = "user";
+    // подпротокол-метка: следующий за ним в Sec-WebSocket-Protocol — сам токен
+    public static final String BEARER_PROTOCOL = "bearer";
+
+    private final TokenAuthenticator tokenAuthenticator;
+
+    public JwtHandshakeInterceptor(TokenAuthenticator tokenAuthenticator) {
+        this.tokenAuthenticator = tokenAuthenticator;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        Optional<AuthenticatedUser> user = tokenOf(request).flatMap(tokenAuthenticator::authenticate);
+        if (user.isEmpty()) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(USER_ATTRIBUTE, user.get());
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private static Optional<String> tokenOf(ServerHttpRequest request) {
+        String auth = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (auth != null && auth.startsWith("Bearer ")) {
+            return Optional.of(auth.substring(7)).filter(t -> !t.isBlank());
+        }
+
+        // браузер: new WebSocket(url, ["bearer", token])
+        List<String> protocols = new ArrayList<>();
+        for (String value : request.getHeaders().getOrEmpty(WebSocketHttpHeaders.SEC_WEBSOCKET_PROTOCOL)) {
+            for (String protocol : value.split(",")) {
+                protocols.add(protocol.trim());
+            }
+        }
+        int marker = protocols.indexOf(BEARER_PROTOCOL);
+        if (marker < 0 || marker + 1 >= protocols.size()) {
+            return Optional.empty();
+        }
+        return Optional.of(protocols.get(marker + 1)).filter(t -> !t.isBlank());
+    }
+}
@@ -2,17 +2,30 @@ package com.smileproiz.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class JwtService {
@@ -23,13 +36,44 @@ public class JwtService {
     @Value("${app.jwt.exp-ms:604800000}")
     private long expMs;
 
-    private Key key() {
+    // Сколько проверенных токенов держим в памяти (0 — кэш выключен)
+    @Value("${app.jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
+    // Ключ и парсер строятся один раз: JwtParser потокобезопасен
+    private Key key;
+    private JwtParser parser;
+
+    // sha-256(токен) -> claims; запись живёт не дольше, чем сам токен
+    private record CachedClaims(Claims claims, long expiresAt) {}
+
+    private final Map<String, CachedClaims> claimsCache = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong lastPurge = new AtomicLong();
+
+    // разбор и проверка подписи (промахи кэша); попадания в кэш — счётчик security.jwt.claims.cache
+    private final Timer parseValid;
+    private final Timer parseInvalid;
+
+    public JwtService(MeterRegistry meterRegistry) {
+        this.parseValid = Timer.builder("security.jwt.parse").tag("result", "valid").register(meterRegistry);
+        this.parseInvalid = Timer.builder("security.jwt.parse").tag("result", "invalid").register(meterRegistry);
+        FunctionCounter.builder("security.jwt.claims.cache", cacheHits, AtomicLong::get)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("security.jwt.claims.cache", cacheMisses, AtomicLong::get)
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("security.jwt.claims.cache.size", claimsCache, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
         String s = (secret == null) ? "" : secret.trim();
 
         byte[] keyBytes;
         try {
             keyBytes = Decoders.BASE64.decode(s);
-        } catch (IllegalArgumentException e) {
+        } catch (RuntimeException e) { // jjwt бросает DecodingException, а не IllegalArgumentException
             keyBytes = s.getBytes(StandardCharsets.UTF_8);
         }
 
@@ -37,47 +81,124 @@ public class JwtService {
             throw new IllegalStateException("JWT secret is too short. Need at least 32 bytes for HS256.");
         }
 
-        return Keys.hmacShaKeyFor(keyBytes);
+        key = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
-    public String generateToken(String email, String role) {
+    // Claims для входа без запроса в БД (см. JwtAuthFilter)
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_TOKEN_VERSION = "tv";
+
+    public String generateToken(Long userId, String email, String role, int tokenVersion) {
+        return buildToken(email, Map.of(
+                CLAIM_ROLE, safeRole(role),
+                CLAIM_USER_ID, userId,
+                CLAIM_TOKEN_VERSION, tokenVersion
+        ));
+    }
+
+    private String buildToken(String email, Map<String, Object> claims) {
         Date now = new Date();
         Date exp = new Date(now.getTime() + expMs);
 
-        String safeRole = (role == null || role.isBlank()) ? "user" : role.toLowerCase();
-
         return Jwts.builder()
                 .setSubject(email)
-                .addClaims(Map.of("role", safeRole))
+                .addClaims(claims)
                 .setIssuedAt(now)
                 .setExpiration(exp)
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String extractEmail(String token) {
-        return parseClaims(token).getSubject();
+    private static String safeRole(String role) {
+        return (role == null || role.isBlank()) ? "user" : role.toLowerCase();
     }
 
-    public String extractRole(String token) {
-        Object role = parseClaims(token).get("role");
-        return (role == null) ? "user" : role.toString();
-    }
+    // ================= VERIFICATION =================
 
-    public boolean isTokenValid(String token) {
+    // Один разбор на запрос: подпись + срок действия. Пустой Optional — токен невалиден.
+    public Optional<Claims> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        String digest = claimsCacheMaxSize > 0 ? digest(token) : null;
+        long now = System.currentTimeMillis();
+
+        if (digest != null) {
+            CachedClaims cached = claimsCache.get(digest);
+            if (cached != null) {
+                if (cached.expiresAt() > now) {
+                    cacheHits.incrementAndGet();
+                    return Optional.of(cached.claims());
+                }
+                claimsCache.remove(digest, cached);
+            }
+            cacheMisses.incrementAndGet();
+        }
+
+        Claims claims;
+        long started = System.nanoTime();
         try {
-            parseClaims(token);
-            return true;
+            claims = parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            parseInvalid.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return Optional.empty();
         }
+        parseValid.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        if (digest != null && claims.getExpiration() != null) {
+            cache(digest, new CachedClaims(claims, claims.getExpiration().getTime()), now);
+        }
+        return Optional.of(claims);
     }
 
-    private Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private void cache(String digest, CachedClaims entry, long now) {
+        if (claimsCache.size() >= claimsCacheMaxSize) {
+            // чистим истёкшие не чаще раза в секунду, чтобы полный кэш не сканировался на каждый промах
+            long last = lastPurge.get();
+            if (now - last >= 1000 && lastPurge.compareAndSet(last, now)) {
+                claimsCache.values().removeIf(c -> c.expiresAt() <= now);
+            }
+            if (claimsCache.size() >= claimsCacheMaxSize) {
+                return; // все записи живые — новый токен просто проверится ещё раз
+            }
+        }
+        claimsCache.put(digest, entry);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public long getClaimsCacheHits() { return cacheHits.get(); }
+    public long getClaimsCacheMisses() { return cacheMisses.get(); }
+    public int getClaimsCacheSize() { return claimsCache.size(); }
+
+    public double getClaimsCacheHitRate() {
+        long hits = cacheHits.get();
+        long total = hits + cacheMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    // ================= LEGACY HELPERS =================
+
+    public String extractEmail(String token) {
+        return verify(token).map(Claims::getSubject).orElseThrow(() -> new JwtException("Invalid token"));
+    }
+
+    public String extractRole(String token) {
+        Object role = verify(token).map(c -> c.get(CLAIM_ROLE)).orElse(null);
+        return (role == null) ? "user" : role.toString();
+    }
+
+    public boolean isTokenValid(String token) {
+        return verify(token).isPresent();
     }
 }
@@ -0,0 +1,155 @@
+package com.smileproiz.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🔐 BCrypt только здесь — на своём маленьком пуле потоков с ограниченной очередью.
+ * Всплеск входов занимает не больше bcrypt.threads ядер, остальные запросы (каталог, корзина) его не ждут.
+ * Очередь заполнена — сразу 429 для входа (его и ограничиваем) и 503 для регистрации и смены пароля:
+ * это не «много попыток входа», клиенту просто стоит повторить позже. Ответа из пула нет дольше timeout-ms — 503.
+ */
+@Component
+public class PasswordHashingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private static final String SERVER_BUSY = "Сервер перегружен, попробуйте позже";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    // время самого хэширования и ожидания в очереди пула
+    private final Timer matchesTimer;
+    private final Timer encodeTimer;
+    private final Timer queueWaitTimer;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.security.bcrypt.threads:0}") int threads,
+                                  @Value("${app.security.bcrypt.queue-size:64}") int queueSize,
+                                  @Value("${app.security.bcrypt.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+
+        // 0 — половина ядер: вторая половина остаётся обычным запросам
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.matchesTimer = Timer.builder("security.bcrypt").tag("op", "matches").register(meterRegistry);
+        this.encodeTimer = Timer.builder("security.bcrypt").tag("op", "encode").register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("security.bcrypt.queue.wait").register(meterRegistry);
+        Gauge.builder("security.bcrypt.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("security.bcrypt.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+        FunctionCounter.builder("security.bcrypt.rejected", rejected, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("security.bcrypt.timeouts", timedOut, AtomicLong::get).register(meterRegistry);
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword),
+                HttpStatus.TOO_MANY_REQUESTS, "Слишком много попыток входа, попробуйте через несколько секунд");
+    }
+
+    // регистрация и смена пароля
+    public String encode(String rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword),
+                HttpStatus.SERVICE_UNAVAILABLE, "Сервер занят, попробуйте через несколько секунд");
+    }
+
+    // true — хэш сделан со старой стоимостью (strength), его стоит пересчитать при входе
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    // Пересчёт хэша не должен ронять вход: если пул занят — просто сделаем это в следующий раз
+    public String encodeIfIdle(String rawPassword) {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            return null;
+        }
+        try {
+            return encode(rawPassword);
+        } catch (ResponseStatusException e) {
+            return null;
+        }
+    }
+
+    private <T> T run(Timer timer, Callable<T> task, HttpStatus busyStatus, String busyMessage) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                queueWaitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } finally {
+                    timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(busyStatus, busyMessage);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Задача ещё в очереди — отмена её снимает. Начатый хэш BCrypt прерывание не проверяет:
+            // поток досчитает его впустую, поэтому без interrupt — он бы ничего не дал
+            future.cancel(false);
+            timedOut.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, SERVER_BUSY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, SERVER_BUSY);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int getPoolSize() { return executor.getMaximumPoolSize(); }
+    public int getActiveCount() { return executor.getActiveCount(); }
+    public int getQueued() { return executor.getQueue().size(); }
+    public long getRejected() { return rejected.get(); }
+    public long getTimedOut() { return timedOut.get(); }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        log.debug("BCrypt executor stopped");
+    }
+}
@@ -0,0 +1,76 @@
+package com.smileproiz.security;
+
+import com.smileproiz.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT → AuthenticatedUser. Общий для HTTP (JwtAuthFilter) и рукопожатия WebSocket (JwtHandshakeInterceptor),
+ * чтобы токен везде проверялся одинаково.
+ */
+@Component
+public class TokenAuthenticator {
+
+    private final JwtService jwtService;
+    private final UserRepository userRepository;
+    private final TokenVersionRegistry tokenVersions;
+
+    private final Timer accepted;
+    private final Timer rejected;
+    private final Timer userLookup;
+
+    // true — токены с uid/tv принимаются без запроса пользователя в БД (роль берётся из токена)
+    @Value("${app.security.claims-only-auth:true}")
+    private boolean claimsOnlyAuth;
+
+    public TokenAuthenticator(JwtService jwtService, UserRepository userRepository, TokenVersionRegistry tokenVersions,
+                              MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.tokenVersions = tokenVersions;
+        // вся проверка токена в фильтре: разбор (или кэш) + версия токенов / пользователь из БД
+        this.accepted = Timer.builder("security.authenticate").tag("result", "accepted").register(meterRegistry);
+        this.rejected = Timer.builder("security.authenticate").tag("result", "rejected").register(meterRegistry);
+        this.userLookup = Timer.builder("security.user.lookup").tag("query", "user").register(meterRegistry);
+    }
+
+    // Пустой Optional — подпись/срок не прошли, пользователь удалён или токен отозван
+    public Optional<AuthenticatedUser> authenticate(String token) {
+        long started = System.nanoTime();
+        // ✅ один разбор токена (повторные — из кэша JwtService)
+        Optional<AuthenticatedUser> user = jwtService.verify(token).flatMap(this::authenticate);
+        (user.isPresent() ? accepted : rejected).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return user;
+    }
+
+    private Optional<AuthenticatedUser> authenticate(Claims claims) {
+        String email = claims.getSubject();
+        Number userId = claims.get(JwtService.CLAIM_USER_ID, Number.class);
+        Number tokenVersion = claims.get(JwtService.CLAIM_TOKEN_VERSION, Number.class);
+
+        // ✅ новый токен: всё нужное уже в claims, в БД не ходим (версия токенов проверяется в памяти)
+        if (claimsOnlyAuth && userId != null && tokenVersion != null) {
+            if (!tokenVersions.isCurrent(userId.longValue(), tokenVersion.intValue())) {
+                return Optional.empty();
+            }
+            return Optional.of(new AuthenticatedUser(userId.longValue(), email, roleOf(claims.get(JwtService.CLAIM_ROLE))));
+        }
+
+        // старый токен (или режим выключен): роль читаем из БД.
+        // 🔐 Токен без tv выдан до версий токенов — считаем его версией 0: первая смена пароля его отзывает
+        int version = tokenVersion == null ? 0 : tokenVersion.intValue();
+        return userLookup.record(() -> userRepository.findByEmail(email))
+                .filter(u -> u.getTokenVersion() == version)
+                .map(u -> new AuthenticatedUser(u.getId(), u.getEmail(), roleOf(u.getRole())));
+    }
+
+    private static String roleOf(Object role) {
+        return (role == null || role.toString().isBlank()) ? "USER" : role.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.smileproiz.security;
+
+import com.smileproiz.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Текущая версия токенов пользователя в памяти. Смена пароля поднимает версию — все выданные раньше токены
+ * перестают приниматься. Запись перечитывается из БД не реже, чем раз в ttl, чтобы увидеть смену версии
+ * на другом инстансе. Записей не больше max-size: при заполнении устаревшие выбрасываются.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private record Entry(int version, long loadedAt) {}
+
+    private final UserRepository userRepository;
+    private final Map<Long, Entry> versions = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge = new AtomicLong();
+    private final Timer lookup;
+
+    @Value("${app.security.token-version-ttl-ms:30000}")
+    private long ttlMs;
+
+    @Value("${app.security.token-version-cache.max-size:100000}")
+    private int maxSize;
+
+    public TokenVersionRegistry(UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.lookup = Timer.builder("security.user.lookup").tag("query", "token_version").register(meterRegistry);
+        Gauge.builder("security.token_version.cache.size", versions, Map::size).register(meterRegistry);
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        long now = System.currentTimeMillis();
+        Entry entry = versions.get(userId);
+
+        if (entry == null || now - entry.loadedAt() >= ttlMs) {
+            Integer version = lookup.record(() -> userRepository.findTokenVersionById(userId)).orElse(null);
+            if (version == null) {
+                versions.remove(userId);
+                return false; // пользователь удалён
+            }
+            entry = new Entry(version, now);
+            cache(userId, entry, now);
+        }
+        return entry.version() == tokenVersion;
+    }
+
+    public void update(Long userId, int version) {
+        long now = System.currentTimeMillis();
+        cache(userId, new Entry(version, now), now);
+    }
+
+    private void cache(Long userId, Entry entry, long now) {
+        if (versions.size() >= maxSize && !versions.containsKey(userId)) {
+            // устаревшие записи всё равно перечитались бы; чистим не чаще раза в секунду
+            long last = lastPurge.get();
+            if (now - last >= 1000 && lastPurge.compareAndSet(last, now)) {
+                versions.values().removeIf(e -> now - e.loadedAt() >= ttlMs);
+            }
+            if (versions.size() >= maxSize) {
+                return; // все записи свежие — этот пользователь просто проверится по БД ещё раз
+            }
+        }
+        versions.put(userId, entry);
+    }
+
+    public int getCacheSize() { return versions.size(); }
+}
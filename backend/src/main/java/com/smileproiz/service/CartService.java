@@ -1,11 +1,15 @@
 package com.smileproiz.service;
 
+import com.smileproiz.dto.CartItemViewDto;
+import com.smileproiz.dto.CartSummaryDto;
+import com.smileproiz.handler.CartSessionRegistry;
 import com.smileproiz.model.CartItem;
 import com.smileproiz.model.Product;
-import com.smileproiz.model.User;
+import com.smileproiz.model.ProductVariant;
 import com.smileproiz.repository.CartRepository;
+import com.smileproiz.repository.CartUpsertRepository.UpsertResult;
 import com.smileproiz.repository.ProductRepository;
-import com.smileproiz.repository.UserRepository;
+import com.smileproiz.security.AuthenticatedUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -14,7 +18,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class CartService {
@@ -23,41 +26,78 @@ public class CartService {
 
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private final ProductVariantService variantService;
+    private final CartWriteBehindStore writeBehind;
+    private final CartSummaryRegistry summaries;
+    private final CartSessionRegistry cartSessions;
 
     public CartService(CartRepository cartRepository,
                        ProductRepository productRepository,
-                       UserRepository userRepository) {
+                       ProductVariantService variantService,
+                       CartWriteBehindStore writeBehind,
+                       CartSummaryRegistry summaries,
+                       CartSessionRegistry cartSessions) {
         this.cartRepository = cartRepository;
         this.productRepository = productRepository;
-        this.userRepository = userRepository;
+        this.variantService = variantService;
+        this.writeBehind = writeBehind;
+        this.summaries = summaries;
+        this.cartSessions = cartSessions;
     }
 
-private User currentUser() {
-    var auth = SecurityContextHolder.getContext().getAuthentication();
-    if (auth == null || auth.getPrincipal() == null) {
-        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
+    // ✅ Пользователь из токена (JwtAuthFilter) — без запроса в БД
+    private AuthenticatedUser currentUser() {
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof AuthenticatedUser user)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
+        }
+        return user;
     }
-    String email = auth.getPrincipal().toString().trim().toLowerCase();
-    return userRepository.findByEmail(email)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
-}
 
     // Получить корзину только текущего пользователя
-    public List<CartItem> getAllItems() {
-        User user = currentUser();
-        return cartRepository.findByUser(user);
+    public List<CartItemViewDto> getAllItems() {
+        AuthenticatedUser user = currentUser();
+        if (writeBehind.isEnabled()) {
+            return writeBehind.items(user.id()).stream().map(CartItemViewDto::from).toList();
+        }
+        return cartRepository.findViewByUserId(user.id());
+    }
+
+    // ✅ Бейдж и итог корзины — из памяти, строки корзины не читаются
+    public CartSummaryDto getSummary() {
+        AuthenticatedUser user = currentUser();
+        return summaries.get(user.id(), () -> loadSummary(user.id()));
+    }
+
+    private CartSummaryDto loadSummary(Long userId) {
+        if (writeBehind.isEnabled()) {
+            // в БД может ещё не быть последних изменений — считаем по корзине в памяти
+            long lines = 0, count = 0, total = 0;
+            for (CartItem item : writeBehind.items(userId)) {
+                lines++;
+                count += item.getQuantity();
+                total += (long) item.getPrice() * item.getQuantity();
+            }
+            return new CartSummaryDto(lines, count, total);
+        }
+        return cartRepository.summarizeByUserId(userId);
     }
 
-    public CartItem addItem(Long productId, String selectedSize, String selectedColor) {
-        User user = currentUser();
+    // Сколько штук одного товара можно добавить за раз
+    public static final int MAX_ADD_QUANTITY = 99;
 
-        String size = selectedSize != null ? selectedSize.trim() : "Один размер";
-        String color = selectedColor != null ? selectedColor.trim() : "Нет цвета";
+    public CartItem addItem(Long productId, Long variantId, String selectedSize, String selectedColor, int quantity) {
+        AuthenticatedUser user = currentUser();
 
-        logger.info("Add to cart: user={}, productId={}, size={}, color={}",
-                user.getEmail(), productId, size, color);
+        // старые клиенты не присылают quantity (0) — это «добавить одну штуку»
+        int amount = quantity <= 0 ? 1 : quantity;
+        if (amount > MAX_ADD_QUANTITY) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Нельзя добавить больше " + MAX_ADD_QUANTITY + " шт. за раз");
+        }
 
+        // Товар читается отдельным запросом: он нужен для наличия, вариантов и ответа клиенту.
+        // Итого add — два запроса (товар + upsert); сама запись строки корзины атомарна и в один запрос
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "Товар с id " + productId + " не найден"));
@@ -67,63 +107,152 @@ private User currentUser() {
                     "Товар " + product.getName() + " отсутствует на складе");
         }
 
-        Optional<CartItem> existingItem = cartRepository
-                .findByUserAndProductAndSelectedSizeAndSelectedColor(user, product, size, color);
+        // ✅ только существующий вариант товара; размер и цвет берём из него в каноническом виде
+        ProductVariant variant = variantService.resolve(product, variantId, selectedSize, selectedColor);
+        String size = variant.getSize();
+        String color = variant.getColor();
 
-        if (existingItem.isPresent()) {
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + 1);
-            return cartRepository.save(item);
-        }
+        logger.info("Add to cart: user={}, productId={}, variantId={}, size={}, color={}, quantity={}",
+                user.email(), productId, variant.getId(), size, color, amount);
 
-        CartItem item = new CartItem();
-        item.setUser(user);
-        item.setProduct(product);
-        item.setQuantity(1);
-        item.setSelectedSize(size);
-        item.setSelectedColor(color);
-        item.setPrice(product.getPrice());
+        CartItem item;
+        if (writeBehind.isEnabled()) {
+            // строка уже в памяти — только увеличиваем количество, в БД уйдёт при flush
+            item = writeBehind.add(user.id(), product, variant.getId(), size, color, amount,
+                    () -> cartRepository.upsertItem(
+                            user.id(), productId, variant.getId(), size, color, amount, product.getPrice()));
+        } else {
+            // ✅ один запрос: вставка или quantity + amount, без гонок между параллельными нажатиями
+            UpsertResult result = cartRepository.upsertItem(
+                    user.id(), productId, variant.getId(), size, color, amount, product.getPrice());
 
-        return cartRepository.save(item);
+            item = new CartItem();
+            item.setId(result.id());
+            item.setProduct(product);
+            item.setQuantity(result.quantity());
+            item.setSelectedSize(size);
+            item.setSelectedColor(color);
+            item.setVariantId(variant.getId());
+            item.setPrice(result.price());
+        }
+
+        // количество равно добавленному — значит, строка новая
+        boolean newLine = item.getQuantity() == amount;
+        summaries.apply(user.id(), newLine ? 1 : 0, amount, (long) amount * item.getPrice());
+        publishChanged(user.id(), item);
+        return item;
     }
 
     public void removeItem(Long id) {
-        User user = currentUser();
+        AuthenticatedUser user = currentUser();
+
+        if (writeBehind.isEnabled()) {
+            var removed = writeBehind.remove(user.id(), id);
+            if (removed.isPresent()) {
+                summaryRemoved(user.id(), removed.get());
+                publishRemoved(user.id(), id);
+                return;
+            }
+        }
 
         CartItem item = cartRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Товар в корзине с id " + id + " не найден"));
 
         // запрет удалить чужой item
-        if (!item.getUser().getId().equals(user.getId())) {
+        if (!item.getUser().getId().equals(user.id())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Нет доступа к чужой корзине");
         }
 
-        cartRepository.delete(item);
+        // 0 строк — строку уже удалил параллельный запрос, он же сдвинул итог
+        if (cartRepository.deleteItemById(id) == 1) {
+            summaryRemoved(user.id(), item);
+            publishRemoved(user.id(), id);
+        }
     }
 
     public void clearCart() {
-        User user = currentUser();
-        cartRepository.deleteByUser(user);
+        AuthenticatedUser user = currentUser();
+        if (writeBehind.isEnabled()) {
+            writeBehind.forget(user.id());
+        }
+        cartRepository.deleteByUserId(user.id());
+        summaries.clear(user.id());
+        if (cartSessions.hasSessions(user.id())) {
+            cartSessions.cleared(user.id(), new CartSummaryDto(0, 0, 0));
+        }
+    }
+
+    private void summaryRemoved(Long userId, CartItem item) {
+        summaries.apply(userId, -1, -item.getQuantity(), -(long) item.getQuantity() * item.getPrice());
+    }
+
+    private void summaryQuantityChanged(Long userId, CartItem item, int previousQuantity) {
+        int delta = item.getQuantity() - previousQuantity;
+        summaries.apply(userId, 0, delta, (long) delta * item.getPrice());
+    }
+
+    // ✅ изменения корзины — на все открытые /ws/cart устройства пользователя
+    private void publishChanged(Long userId, CartItem item) {
+        if (!cartSessions.hasSessions(userId)) return;
+        cartSessions.itemChanged(userId, CartItemViewDto.from(item), summaries.get(userId, () -> loadSummary(userId)));
+    }
+
+    private void publishRemoved(Long userId, Long itemId) {
+        if (!cartSessions.hasSessions(userId)) return;
+        cartSessions.itemRemoved(userId, itemId, summaries.get(userId, () -> loadSummary(userId)));
     }
 
     public CartItem updateItemQuantity(Long cartItemId, int newQuantity) {
-        User user = currentUser();
+        AuthenticatedUser user = currentUser();
+
+        if (writeBehind.isEnabled()) {
+            var updated = writeBehind.updateQuantity(user.id(), cartItemId, newQuantity);
+            if (updated.isPresent()) {
+                CartItem item = updated.get().item();
+                if (newQuantity <= 0) {
+                    summaryRemoved(user.id(), item);
+                    publishRemoved(user.id(), cartItemId);
+                    return null;
+                }
+                summaryQuantityChanged(user.id(), item, updated.get().previousQuantity());
+                publishChanged(user.id(), item);
+                return item;
+            }
+            // не нашли в корзине пользователя — ниже вернём 404/403 как обычно
+        }
 
         CartItem item = cartRepository.findById(cartItemId)
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "Товар в корзине с id " + cartItemId + " не найден"));
 
-        if (!item.getUser().getId().equals(user.getId())) {
+        if (!item.getUser().getId().equals(user.id())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Нет доступа к чужой корзине");
         }
 
         if (newQuantity <= 0) {
-            cartRepository.delete(item);
+            if (cartRepository.deleteItemById(cartItemId) == 1) {
+                summaryRemoved(user.id(), item);
+                publishRemoved(user.id(), cartItemId);
+            }
             return null;
         }
 
-        item.setQuantity(newQuantity);
-        return cartRepository.save(item);
+        // дельта итога верна, только если в строке всё ещё прочитанное количество
+        int previous = item.getQuantity();
+        if (cartRepository.updateQuantityIfUnchanged(cartItemId, previous, newQuantity) == 1) {
+            item.setQuantity(newQuantity);
+            summaryQuantityChanged(user.id(), item, previous);
+        } else {
+            // параллельный запрос поменял или удалил строку: пишем как есть, итог пересчитается из БД
+            if (cartRepository.updateQuantity(cartItemId, newQuantity) == 0) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Товар в корзине с id " + cartItemId + " не найден");
+            }
+            item.setQuantity(newQuantity);
+            summaries.invalidate(user.id());
+        }
+        publishChanged(user.id(), item);
+        return item;
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.smileproiz.service;
+
+import com.smileproiz.dto.CartSummaryDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Итоги корзины (позиций, штук, сумма) в памяти. CartService сдвигает их на каждое изменение корзины,
+ * поэтому /api/cart/summary не читает строки корзины. Из БД итог пересчитывается только при промахе
+ * и не реже, чем раз в ttl — чтобы увидеть изменения с другого инстанса и убрать возможный дрейф.
+ */
+@Component
+public class CartSummaryRegistry {
+
+    private record Entry(long lines, long itemCount, long total, long loadedAt) {
+        Entry plus(long linesDelta, long quantityDelta, long totalDelta) {
+            return new Entry(Math.max(0, lines + linesDelta), Math.max(0, itemCount + quantityDelta),
+                    Math.max(0, total + totalDelta), loadedAt);
+        }
+    }
+
+    private final Map<Long, Entry> summaries = new ConcurrentHashMap<>();
+
+    @Value("${app.cart.summary.ttl-ms:60000}")
+    private long ttlMs;
+
+    public CartSummaryDto get(Long userId, Supplier<CartSummaryDto> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = summaries.get(userId);
+
+        if (entry == null || now - entry.loadedAt() >= ttlMs) {
+            CartSummaryDto loaded = loader.get();
+            entry = new Entry(loaded.getLines(), loaded.getItemCount(), loaded.getTotal(), now);
+            summaries.put(userId, entry);
+        }
+        return new CartSummaryDto(entry.lines(), entry.itemCount(), entry.total());
+    }
+
+    // Изменение уже записано в корзину. Если итога в памяти нет — при чтении он загрузится вместе с ним
+    public void apply(Long userId, long linesDelta, long quantityDelta, long totalDelta) {
+        summaries.computeIfPresent(userId, (id, e) -> e.plus(linesDelta, quantityDelta, totalDelta));
+    }
+
+    public void clear(Long userId) {
+        summaries.put(userId, new Entry(0, 0, 0, System.currentTimeMillis()));
+    }
+
+    // Дельту посчитать нельзя (строку поменял параллельный запрос) — при следующем чтении итог загрузится из БД
+    public void invalidate(Long userId) {
+        summaries.remove(userId);
+    }
+}
@@ -0,0 +1,405 @@
+package com.smileproiz.service;
+
+import com.smileproiz.model.CartItem;
+import com.smileproiz.model.Product;
+import com.smileproiz.repository.CartBatchWriteRepository.QuantityUpdate;
+import com.smileproiz.repository.CartRepository;
+import com.smileproiz.repository.CartUpsertRepository.UpsertResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind корзины (включается app.cart.write-behind.enabled).
+ * Корзины активных пользователей живут в памяти; изменения количества и удаления применяются там
+ * и раз в flush-interval-ms пишутся в cart_items пакетами JDBC (частые +/- схлопываются в один UPDATE).
+ * Новая строка вставляется сразу — клиенту нужен её настоящий id.
+ * Потерять при падении можно не больше flush-interval-ms изменений; при остановке всё сбрасывается в БД.
+ * Если пакет не записался, строки пишутся по одной; строку, которая не пишется max-attempts раз подряд
+ * (при том что остальные проходят), откладываем в сторону с ошибкой в логе, а корзину перечитываем из БД.
+ * Состояние локально для инстанса: при нескольких инстансах нужен sticky-роутинг по пользователю.
+ */
+@Component
+public class CartWriteBehindStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CartWriteBehindStore.class);
+
+    @Value("${app.cart.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.cart.write-behind.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${app.cart.write-behind.idle-evict-ms:300000}")
+    private long idleEvictMs;
+
+    @Value("${app.cart.write-behind.max-attempts:5}")
+    private int maxAttempts;
+
+    private final CartRepository cartRepository;
+    private final Map<Long, UserCart> carts = new ConcurrentHashMap<>();
+
+    // flush из планировщика и при остановке/вытеснении не должен идти параллельно
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public CartWriteBehindStore(CartRepository cartRepository) {
+        this.cartRepository = cartRepository;
+    }
+
+    private static final class Line {
+        final Long id;
+        final Product product;
+        final Long variantId;
+        final String size;
+        final String color;
+        final int price;
+        int quantity;
+        boolean dirty;
+        boolean deleted;
+        boolean flushing;   // изменение строки сейчас пишется в БД
+        int failedAttempts; // неудачных записей подряд
+
+        Line(Long id, Product product, Long variantId, String size, String color, int quantity, int price) {
+            this.id = id;
+            this.product = product;
+            this.variantId = variantId;
+            this.size = size;
+            this.color = color;
+            this.quantity = quantity;
+            this.price = price;
+        }
+
+        CartItem toItem() {
+            CartItem item = new CartItem();
+            item.setId(id);
+            item.setProduct(product);
+            item.setVariantId(variantId);
+            item.setSelectedSize(size);
+            item.setSelectedColor(color);
+            item.setQuantity(quantity);
+            item.setPrice(price);
+            return item;
+        }
+    }
+
+    private static final class UserCart {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Line> lines = new LinkedHashMap<>(); // в порядке id, как findByUserId
+        volatile long lastAccess = System.currentTimeMillis();
+        boolean evicted;
+        boolean stale; // изменение строки отброшено — память расходится с БД, перечитаем при первой возможности
+
+        Line byKey(Long productId, String size, String color) {
+            for (Line l : lines.values()) {
+                if (l.product.getId().equals(productId) && l.size.equals(size) && l.color.equals(color)) {
+                    return l;
+                }
+            }
+            return null;
+        }
+
+        boolean hasDirty() {
+            for (Line l : lines.values()) {
+                if (l.dirty) return true;
+            }
+            return false;
+        }
+    }
+
+    // Строка после изменения и её количество до него (для итогов корзины)
+    public record QuantityChange(CartItem item, int previousQuantity) {}
+
+    @FunctionalInterface
+    private interface CartAction<T> {
+        T apply(UserCart cart);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ================= OPERATIONS =================
+
+    public List<CartItem> items(Long userId) {
+        return withCart(userId, cart -> {
+            List<CartItem> items = new ArrayList<>(cart.lines.size());
+            for (Line l : cart.lines.values()) {
+                if (!l.deleted) items.add(l.toItem());
+            }
+            return items;
+        });
+    }
+
+    // insert вызывается только если такой строки в памяти нет (тогда нужен настоящий id из БД)
+    public CartItem add(Long userId, Product product, Long variantId, String size, String color, int amount,
+                        Supplier<UpsertResult> insert) {
+        while (true) {
+            CartItem added = withCart(userId, cart -> {
+                Line line = cart.byKey(product.getId(), size, color);
+                if (line != null && line.deleted) {
+                    // DELETE этой строки уже уходит в БД — дождёмся конца flush (без блокировки корзины) и повторим
+                    if (line.flushing) return null;
+                    // DELETE ещё не отправлен, строка в БД цела — просто возвращаем её с новым количеством
+                    line.deleted = false;
+                    line.quantity = amount;
+                    line.dirty = true;
+                    return line.toItem();
+                }
+                if (line != null) {
+                    line.quantity += amount;
+                    line.dirty = true;
+                } else {
+                    UpsertResult r = insert.get();
+                    line = new Line(r.id(), product, variantId, size, color, r.quantity(), r.price());
+                    cart.lines.put(r.id(), line);
+                }
+                return line.toItem();
+            });
+            if (added != null) return added;
+
+            flushLock.lock();
+            flushLock.unlock();
+        }
+    }
+
+    // Пустой Optional — строки нет в корзине пользователя в памяти (решает обычный путь через БД)
+    public Optional<QuantityChange> updateQuantity(Long userId, Long itemId, int quantity) {
+        return withCart(userId, cart -> {
+            Line line = cart.lines.get(itemId);
+            if (line == null || line.deleted) return Optional.empty();
+
+            int previous = line.quantity;
+            line.dirty = true;
+            if (quantity <= 0) {
+                line.deleted = true;
+                return Optional.of(new QuantityChange(line.toItem(), previous));
+            }
+            line.quantity = quantity;
+            return Optional.of(new QuantityChange(line.toItem(), previous));
+        });
+    }
+
+    // Возвращает удалённую строку (как она была до удаления)
+    public Optional<CartItem> remove(Long userId, Long itemId) {
+        return withCart(userId, cart -> {
+            Line line = cart.lines.get(itemId);
+            if (line == null || line.deleted) return Optional.empty();
+            line.deleted = true;
+            line.dirty = true;
+            return Optional.of(line.toItem());
+        });
+    }
+
+    // Очистка корзины делается сразу в БД (CartService), память просто забываем
+    public void forget(Long userId) {
+        UserCart cart = carts.remove(userId);
+        if (cart == null) return;
+        cart.lock.lock();
+        try {
+            cart.evicted = true;
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    private <T> T withCart(Long userId, CartAction<T> action) {
+        while (true) {
+            UserCart cart = carts.get(userId);
+            if (cart == null) {
+                cart = load(userId);
+            }
+            cart.lock.lock();
+            try {
+                if (cart.evicted) continue; // корзину вытеснили между get и lock — берём заново
+                if (cart.stale && !cart.hasDirty()) {
+                    // после отброшенного изменения перечитываем корзину из БД
+                    cart.evicted = true;
+                    carts.remove(userId, cart);
+                    continue;
+                }
+                cart.lastAccess = System.currentTimeMillis();
+                return action.apply(cart);
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    private UserCart load(Long userId) {
+        UserCart loaded = new UserCart();
+        for (CartItem item : cartRepository.findByUserId(userId)) {
+            loaded.lines.put(item.getId(), new Line(item.getId(), item.getProduct(), item.getVariantId(),
+                    item.getSelectedSize(), item.getSelectedColor(), item.getQuantity(), item.getPrice()));
+        }
+        UserCart existing = carts.putIfAbsent(userId, loaded);
+        if (existing != null) return existing;
+
+        if (carts.size() > maxUsers) {
+            evict(Comparator.comparingLong(c -> c.lastAccess), carts.size() - maxUsers);
+        }
+        return loaded;
+    }
+
+    // ================= FLUSH =================
+
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        if (!enabled) return;
+        flush();
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (!enabled) return;
+        flush();
+        log.info("Write-behind carts flushed on shutdown");
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<UserCart> owners = new ArrayList<>();
+            List<Line> pending = new ArrayList<>();
+            List<QuantityUpdate> updates = new ArrayList<>();
+            List<Long> deletes = new ArrayList<>();
+
+            for (UserCart cart : carts.values()) {
+                cart.lock.lock();
+                try {
+                    for (Line l : cart.lines.values()) {
+                        if (!l.dirty) continue;
+                        l.dirty = false;
+                        l.flushing = true;
+                        owners.add(cart);
+                        pending.add(l);
+                        if (l.deleted) {
+                            deletes.add(l.id);
+                        } else {
+                            updates.add(new QuantityUpdate(l.id, l.quantity));
+                        }
+                    }
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+
+            if (pending.isEmpty()) return;
+
+            boolean[] written = new boolean[pending.size()];
+            boolean anyWritten;
+            try {
+                cartRepository.batchUpdateQuantities(updates);
+                cartRepository.batchDelete(deletes);
+                Arrays.fill(written, true);
+                anyWritten = true;
+                log.debug("Cart flush: updates={}, deletes={}", updates.size(), deletes.size());
+            } catch (RuntimeException ex) {
+                log.warn("Cart flush batch failed, writing lines one by one: updates={}, deletes={}",
+                        updates.size(), deletes.size(), ex);
+                anyWritten = writeOneByOne(pending, written);
+            }
+
+            for (int i = 0; i < pending.size(); i++) {
+                UserCart cart = owners.get(i);
+                Line l = pending.get(i);
+                cart.lock.lock();
+                try {
+                    l.flushing = false;
+                    if (written[i]) {
+                        l.failedAttempts = 0;
+                        if (l.deleted && !l.dirty) {
+                            // удалённую строку убираем из памяти только после DELETE в БД
+                            cart.lines.remove(l.id);
+                        }
+                    } else if (anyWritten && ++l.failedAttempts >= maxAttempts) {
+                        // остальные строки пишутся, а эта — нет: дальше повторять бессмысленно
+                        log.error("Cart line dropped after {} failed writes: id={}, quantity={}, deleted={}",
+                                l.failedAttempts, l.id, l.quantity, l.deleted);
+                        l.dirty = false;
+                        cart.lines.remove(l.id);
+                        cart.stale = true;
+                    } else {
+                        // БД недоступна целиком — ждём её без счёта попыток
+                        l.dirty = true; // повторим при следующем flush
+                    }
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Пакет не прошёл — пишем по строке, чтобы одна «битая» строка не держала остальные корзины
+    private boolean writeOneByOne(List<Line> pending, boolean[] written) {
+        boolean any = false;
+        for (int i = 0; i < pending.size(); i++) {
+            Line l = pending.get(i);
+            try {
+                if (l.deleted) {
+                    cartRepository.batchDelete(List.of(l.id));
+                } else {
+                    cartRepository.batchUpdateQuantities(List.of(new QuantityUpdate(l.id, l.quantity)));
+                }
+                written[i] = true;
+                any = true;
+            } catch (RuntimeException ex) {
+                log.error("Cart line write failed: id={}, deleted={}", l.id, l.deleted, ex);
+            }
+        }
+        return any;
+    }
+
+    private void evictIdle() {
+        long threshold = System.currentTimeMillis() - idleEvictMs;
+        evict(Comparator.comparingLong(c -> c.lastAccess), Integer.MAX_VALUE, threshold);
+    }
+
+    private void evict(Comparator<UserCart> order, int count) {
+        evict(order, count, Long.MAX_VALUE);
+    }
+
+    // Вытесняем только корзины без несохранённых изменений — грязные уйдут после ближайшего flush
+    private void evict(Comparator<UserCart> order, int count, long idleBefore) {
+        List<Map.Entry<Long, UserCart>> candidates = new ArrayList<>(carts.entrySet());
+        candidates.sort(Map.Entry.comparingByValue(order));
+
+        int evicted = 0;
+        for (Map.Entry<Long, UserCart> e : candidates) {
+            if (evicted >= count) break;
+            UserCart cart = e.getValue();
+            if (cart.lastAccess >= idleBefore && !cart.stale) continue;
+
+            cart.lock.lock();
+            try {
+                if (cart.evicted || cart.hasDirty()) continue;
+                if (cart.lastAccess >= idleBefore && !cart.stale) continue;
+                cart.evicted = true;
+                carts.remove(e.getKey(), cart);
+                evicted++;
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    public int getCachedUsers() {
+        return carts.size();
+    }
+}
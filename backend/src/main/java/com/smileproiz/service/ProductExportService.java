@@ -0,0 +1,181 @@
+package com.smileproiz.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smileproiz.model.Product;
+import com.smileproiz.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Выгрузка всего каталога в CSV или NDJSON (GET /api/products/export).
+ * Строки читаются курсором БД порциями fetch-size в read-only транзакции и сразу пишутся в ответ — без
+ * findAll() и контекста персистентности, память не зависит от размера каталога. Запись в ответ блокирующая:
+ * если клиент читает медленно, поток ждёт на записи и следующая порция из БД не запрашивается.
+ * Формат колонок совпадает с импортом, выгрузку можно загрузить обратно в /api/products/import.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductExportService.class);
+
+    public static final String FORMAT_CSV = ProductImportService.FORMAT_CSV;
+    public static final String FORMAT_NDJSON = ProductImportService.FORMAT_NDJSON;
+
+    private static final String CSV_HEADER =
+            "id,sku,name,price,imageUrl,category,description,material,tag,inStock,size,heights,color,colors";
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+
+    // каждая выгрузка держит соединение из пула до конца — одновременно не больше max-concurrent
+    private final Semaphore slots;
+
+    public ProductExportService(ProductRepository productRepository,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Value("${app.catalog.export.max-concurrent:2}") int maxConcurrent) {
+        this.productRepository = productRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.slots = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    public static String normalizeFormat(String format) {
+        String f = format == null || format.isBlank() ? FORMAT_CSV : format.trim().toLowerCase(Locale.ROOT);
+        if (!f.equals(FORMAT_CSV) && !f.equals(FORMAT_NDJSON)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Неизвестный формат: " + format + " (доступно: csv, ndjson)");
+        }
+        return f;
+    }
+
+    // Занятый слот выгрузки. close() можно звать и из тела ответа, и из завершения запроса — слот вернётся один раз
+    public final class Slot implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot() {}
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+
+    // Занять слот до того, как собран ответ: при перегрузке клиент получит обычный 429 в JSON,
+    // а не заголовки выгрузки (gzip, attachment) над текстом ошибки
+    public Slot acquireSlot() {
+        if (!slots.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Выгрузка уже выполняется, повторите позже");
+        }
+        return new Slot();
+    }
+
+    // Пишет каталог в out (out не закрывается); слот занимает и освобождает вызывающий
+    public void exportProducts(String format, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+            long rows = FORMAT_NDJSON.equals(format) ? writeNdjson(writer) : writeCsv(writer);
+            writer.flush();
+            log.info("Product export: format={}, rows={}, {} ms",
+                    format, rows, (System.nanoTime() - started) / 1_000_000);
+        } catch (UncheckedIOException e) {
+            // клиент отключился посреди выгрузки: курсор и транзакция уже закрыты
+            throw e.getCause();
+        }
+    }
+
+    private long writeCsv(Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        long[] rows = {0};
+        readOnlyTx.executeWithoutResult(status -> productRepository.streamAll(p -> {
+            try {
+                writeCsvRow(writer, p);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+        }));
+        return rows[0];
+    }
+
+    private static void writeCsvRow(Writer w, Product p) throws IOException {
+        w.write(String.valueOf(p.getId()));
+        csvField(w, p.getSku());
+        csvField(w, p.getName());
+        w.write(',');
+        w.write(Integer.toString(p.getPrice()));
+        csvField(w, p.getImageUrl());
+        csvField(w, p.getCategory());
+        csvField(w, p.getDescription());
+        csvField(w, p.getMaterial());
+        csvField(w, p.getTag());
+        w.write(',');
+        w.write(p.isInStock() ? "true" : "false");
+        csvField(w, p.getSize());
+        csvField(w, p.getHeights());
+        csvField(w, p.getColor());
+        csvField(w, p.getColors());
+        w.write("\r\n");
+    }
+
+    // RFC 4180: поле в кавычках, если в нём есть запятая, кавычка или перевод строки
+    private static void csvField(Writer w, String value) throws IOException {
+        w.write(',');
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            w.write(value);
+            return;
+        }
+        w.write('"');
+        w.write(value.replace("\"", "\"\""));
+        w.write('"');
+    }
+
+    private long writeNdjson(Writer writer) throws IOException {
+        long[] rows = {0};
+        try (JsonGenerator json = objectMapper.createGenerator(writer)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            json.setRootValueSeparator(null); // разделитель — перевод строки после каждого объекта
+            readOnlyTx.executeWithoutResult(status -> productRepository.streamAll(p -> {
+                try {
+                    json.writeObject(p);
+                    json.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }));
+        }
+        return rows[0];
+    }
+}
@@ -0,0 +1,229 @@
+package com.smileproiz.service;
+
+import com.smileproiz.dto.ProductFilterDto;
+import com.smileproiz.dto.ProductFilterResultDto;
+import com.smileproiz.model.Product;
+import com.smileproiz.util.CsvValues;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Фасетный индекс каталога: на каждое значение фасета (категория, размер, цвет, наличие) — битовая карта
+ * порядковых номеров товаров, плюс индекс по цене (цена -> битовая карта) для диапазонов и сортировки.
+ * Фильтр = AND/OR битовых карт, счётчики фасетов = cardinality пересечений — без сканирования таблицы.
+ * Номера товаров и загрузка — в ProductOrdinalIndex.
+ */
+@Component
+public class ProductFacetIndex extends ProductOrdinalIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    public static final String CATEGORY = "category";
+    public static final String SIZE = "size";
+    public static final String COLOR = "color";
+    public static final String IN_STOCK = "inStock";
+
+    // товары, которые сейчас в индексе (без дыр от удалений)
+    private final BitSet live = new BitSet();
+
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> bySize = new HashMap<>();
+    private final Map<String, BitSet> byColor = new HashMap<>();
+    private final BitSet inStock = new BitSet();
+    private final NavigableMap<Integer, BitSet> byPrice = new TreeMap<>();
+
+    // ================= INDEXING =================
+
+    @Override
+    protected void clearLocked() {
+        live.clear();
+        byCategory.clear();
+        bySize.clear();
+        byColor.clear();
+        inStock.clear();
+        byPrice.clear();
+    }
+
+    @Override
+    protected void afterRebuildLocked() {
+        log.info("Facet index built: products={}, categories={}", size(), byCategory.size());
+    }
+
+    @Override
+    protected void addLocked(Product p, int ordinal) {
+        live.set(ordinal);
+
+        if (p.getCategory() != null && !p.getCategory().isBlank()) {
+            byCategory.computeIfAbsent(p.getCategory().trim(), k -> new BitSet()).set(ordinal);
+        }
+        for (String size : CsvValues.split(p.getSize())) {
+            bySize.computeIfAbsent(size, k -> new BitSet()).set(ordinal);
+        }
+        for (String color : ProductVariantService.colorsOf(p)) {
+            byColor.computeIfAbsent(color, k -> new BitSet()).set(ordinal);
+        }
+        if (p.isInStock()) {
+            inStock.set(ordinal);
+        }
+        byPrice.computeIfAbsent(p.getPrice(), k -> new BitSet()).set(ordinal);
+    }
+
+    @Override
+    protected void removeLocked(Product p, int ordinal) {
+        live.clear(ordinal);
+        inStock.clear(ordinal);
+
+        if (p.getCategory() != null) clearValue(byCategory, p.getCategory().trim(), ordinal);
+        for (String size : CsvValues.split(p.getSize())) clearValue(bySize, size, ordinal);
+        for (String color : ProductVariantService.colorsOf(p)) clearValue(byColor, color, ordinal);
+        clearValue(byPrice, p.getPrice(), ordinal);
+    }
+
+    private static <K> void clearValue(Map<K, BitSet> facet, K value, int ordinal) {
+        BitSet bits = facet.get(value);
+        if (bits == null) return;
+        bits.clear(ordinal);
+        if (bits.isEmpty()) facet.remove(value);
+    }
+
+    // ================= QUERY =================
+
+    public ProductFilterResultDto filter(ProductFilterDto f, int page, int limit) {
+        lock.readLock().lock();
+        try {
+            // фильтр каждого измерения отдельно: null — измерение не ограничено
+            BitSet categoryBits = anyOf(byCategory, f.getCategory());
+            BitSet sizeBits = anyOf(bySize, f.getSize());
+            BitSet colorBits = anyOf(byColor, f.getColor());
+            BitSet stockBits = f.getInStock() == null ? null : stockBits(f.getInStock());
+            BitSet priceBits = priceRange(f.getMinPrice(), f.getMaxPrice());
+
+            BitSet result = and(live, categoryBits, sizeBits, colorBits, stockBits, priceBits);
+
+            // Счётчики фасета считаются без учёта его собственного фильтра — чтобы видеть соседние значения
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            facets.put(CATEGORY, counts(byCategory, and(live, sizeBits, colorBits, stockBits, priceBits)));
+            facets.put(SIZE, counts(bySize, and(live, categoryBits, colorBits, stockBits, priceBits)));
+            facets.put(COLOR, counts(byColor, and(live, categoryBits, sizeBits, stockBits, priceBits)));
+            facets.put(IN_STOCK, stockCounts(and(live, categoryBits, sizeBits, colorBits, priceBits)));
+
+            List<Product> items = page(result, f.getSort(), page, limit);
+            return new ProductFilterResultDto(items, result.cardinality(), page, limit, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static BitSet anyOf(Map<String, BitSet> facet, List<String> values) {
+        if (values == null || values.isEmpty()) return null;
+        BitSet bits = new BitSet();
+        for (String value : values) {
+            // ?size=S,M и ?size=S&size=M работают одинаково
+            for (String v : CsvValues.split(value)) {
+                BitSet b = facet.get(v);
+                if (b != null) bits.or(b);
+            }
+        }
+        return bits;
+    }
+
+    private BitSet stockBits(boolean wanted) {
+        if (wanted) return inStock;
+        BitSet bits = (BitSet) live.clone();
+        bits.andNot(inStock);
+        return bits;
+    }
+
+    private BitSet priceRange(Integer min, Integer max) {
+        if (min == null && max == null) return null;
+        int from = min == null ? Integer.MIN_VALUE : min;
+        int to = max == null ? Integer.MAX_VALUE : max;
+        if (from > to) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minPrice больше maxPrice");
+        }
+        BitSet bits = new BitSet();
+        for (BitSet b : byPrice.subMap(from, true, to, true).values()) {
+            bits.or(b);
+        }
+        return bits;
+    }
+
+    private static BitSet and(BitSet base, BitSet... filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) result.and(filter);
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> counts(Map<String, BitSet> facet, BitSet scope) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<String, BitSet> e : facet.entrySet()) {
+            if (!e.getValue().intersects(scope)) continue;
+            BitSet bits = (BitSet) e.getValue().clone();
+            bits.and(scope);
+            counts.put(e.getKey(), bits.cardinality());
+        }
+        return counts;
+    }
+
+    private Map<String, Integer> stockCounts(BitSet scope) {
+        BitSet available = (BitSet) scope.clone();
+        available.and(inStock);
+        int yes = available.cardinality();
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("true", yes);
+        counts.put("false", scope.cardinality() - yes);
+        return counts;
+    }
+
+    // Страница результата: по id (номера в ProductOrdinalIndex идут в порядке id — обход битов по возрастанию)
+    // или по цене через индекс цен, при равной цене — тоже по id
+    private List<Product> page(BitSet result, String sort, int page, int limit) {
+        List<Product> items = new ArrayList<>(limit);
+        long skip = (long) page * limit;
+        if (limit == 0) return items;
+
+        String sortKey = (sort == null || sort.isBlank()) ? "id" : sort.trim().toLowerCase(Locale.ROOT);
+        switch (sortKey) {
+            case "id" -> {
+                for (int ord = result.nextSetBit(0); ord >= 0 && items.size() < limit; ord = result.nextSetBit(ord + 1)) {
+                    if (skip-- > 0) continue;
+                    items.add(product(ord));
+                }
+            }
+            case "price", "price_desc" -> {
+                Collection<BitSet> buckets = sortKey.equals("price")
+                        ? byPrice.values()
+                        : byPrice.descendingMap().values();
+                for (BitSet bucket : buckets) {
+                    if (!bucket.intersects(result)) continue;
+                    for (int ord = bucket.nextSetBit(0); ord >= 0; ord = bucket.nextSetBit(ord + 1)) {
+                        if (!result.get(ord)) continue;
+                        if (skip-- > 0) continue;
+                        items.add(product(ord));
+                        if (items.size() == limit) return items;
+                    }
+                }
+            }
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Неизвестная сортировка: " + sortKey + " (доступно: id, price, price_desc)");
+        }
+        return items;
+    }
+}
@@ -0,0 +1,294 @@
+package com.smileproiz.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smileproiz.dto.ProductImportResultDto;
+import com.smileproiz.dto.ProductImportResultDto.RowError;
+import com.smileproiz.model.Product;
+import com.smileproiz.repository.ProductRepository;
+import com.smileproiz.util.CsvRecordReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Массовый импорт товаров из CSV или NDJSON (POST /api/products/import).
+ * Файл читается потоком: в памяти только текущая пачка строк. Каждая пачка — своя транзакция:
+ * существующие sku обновляются вместе с вариантами, новые вставляются пакетами JDBC. Ошибочная строка
+ * пропускается и попадает в отчёт, ошибка БД откатывает только свою пачку. Кэши каталога сбрасываются
+ * один раз в конце.
+ * Если файл дальше не читается (например, незакрытая кавычка в CSV), прочитанное до этого места сохраняется
+ * и возвращается отчёт с readError.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int MAX_SKU_LENGTH = 64;
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ProductVariantService variantService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.catalog.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.catalog.import.max-errors:100}")
+    private int maxErrors;
+
+    public ProductImportService(ProductRepository productRepository,
+                                ProductService productService,
+                                ProductVariantService variantService,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.variantService = variantService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    // Строка файла, прошедшая проверку
+    private record Row(int line, Product product) {}
+
+    // Итог записанной пачки
+    private record ChunkResult(int inserted, List<Long> updatedIds) {}
+
+    // Счётчики и ошибки одного импорта
+    private final class Report {
+        int rows, inserted, updated, failed;
+        final List<RowError> errors = new ArrayList<>();
+        boolean truncated;
+        String readError;
+        final List<Long> updatedIds = new ArrayList<>();
+
+        void error(int line, String sku, String message) {
+            failed++;
+            if (errors.size() < maxErrors) errors.add(new RowError(line, sku, message));
+            else truncated = true;
+        }
+
+        ProductImportResultDto toDto() {
+            return new ProductImportResultDto(rows, inserted, updated, failed, errors, truncated, readError);
+        }
+    }
+
+    public ProductImportResultDto importProducts(InputStream input, String format) {
+        Report report = new Report();
+        // sku -> строка в текущей пачке (повтор sku в одной пачке закрывает её раньше)
+        Map<String, Row> chunk = new LinkedHashMap<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            if (FORMAT_NDJSON.equals(format)) {
+                readNdjson(reader, report, chunk);
+            } else {
+                readCsv(reader, report, chunk);
+            }
+        } catch (IOException e) {
+            // дальше файл не разобрать — строки до ошибки уже проверены, их сохраняем и отдаём отчёт
+            report.readError = "Не удалось прочитать файл: " + e.getMessage();
+        } finally {
+            flush(chunk, report);
+            if (report.inserted + report.updated > 0) {
+                productService.afterBulkChange(report.updatedIds);
+            }
+        }
+
+        log.info("Product import: rows={}, inserted={}, updated={}, failed={}, readError={}",
+                report.rows, report.inserted, report.updated, report.failed, report.readError);
+        return report.toDto();
+    }
+
+    // ================= READING =================
+
+    private void readCsv(BufferedReader reader, Report report, Map<String, Row> chunk) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) return;
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("sku") || !columns.containsKey("name") || !columns.containsKey("price")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "В заголовке CSV нужны колонки sku, name, price");
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            Map<String, String> fields = new HashMap<>();
+            for (Map.Entry<String, Integer> c : columns.entrySet()) {
+                if (c.getValue() < record.size()) fields.put(c.getKey(), record.get(c.getValue()));
+            }
+            accept(csv.getRecordLine(), fields, report, chunk);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Report report, Map<String, Row> chunk) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (IOException e) {
+                report.rows++;
+                report.error(lineNumber, null, "Некорректный JSON");
+                continue;
+            }
+            if (!node.isObject()) {
+                report.rows++;
+                report.error(lineNumber, null, "Ожидается JSON-объект");
+                continue;
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            node.fields().forEachRemaining(e -> {
+                if (!e.getValue().isNull()) {
+                    fields.put(e.getKey().toLowerCase(Locale.ROOT), e.getValue().asText());
+                }
+            });
+            accept(lineNumber, fields, report, chunk);
+        }
+    }
+
+    // ================= VALIDATION =================
+
+    private void accept(int line, Map<String, String> fields, Report report, Map<String, Row> chunk) {
+        report.rows++;
+        String sku = trimToNull(fields.get("sku"));
+        try {
+            Product product = toProduct(sku, fields);
+            if (chunk.containsKey(sku)) {
+                flush(chunk, report); // одна и та же позиция дважды — второй вариант применится после первого
+            }
+            chunk.put(sku, new Row(line, product));
+            if (chunk.size() >= chunkSize) {
+                flush(chunk, report);
+            }
+        } catch (IllegalArgumentException e) {
+            report.error(line, sku, e.getMessage());
+        }
+    }
+
+    private static Product toProduct(String sku, Map<String, String> f) {
+        if (sku == null) throw new IllegalArgumentException("Не указан sku");
+        if (sku.length() > MAX_SKU_LENGTH) throw new IllegalArgumentException("sku длиннее " + MAX_SKU_LENGTH + " символов");
+
+        String name = trimToNull(f.get("name"));
+        if (name == null) throw new IllegalArgumentException("Не указано название");
+
+        String rawPrice = trimToNull(f.get("price"));
+        if (rawPrice == null) throw new IllegalArgumentException("Не указана цена");
+        int price;
+        try {
+            price = Integer.parseInt(rawPrice);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Цена должна быть целым числом");
+        }
+        if (price < 0) throw new IllegalArgumentException("Цена не может быть отрицательной");
+
+        Product p = new Product(name, price,
+                trimToNull(f.get("imageurl")),
+                trimToNull(f.get("category")),
+                trimToNull(f.get("description")),
+                trimToNull(f.get("material")),
+                trimToNull(f.get("tag")),
+                parseInStock(f.get("instock")),
+                trimToNull(f.get("size")),
+                trimToNull(f.get("heights")),
+                trimToNull(f.get("color")),
+                trimToNull(f.get("colors")));
+        p.setSku(sku);
+        return p;
+    }
+
+    // Не указано — товар в наличии
+    private static boolean parseInStock(String value) {
+        String v = trimToNull(value);
+        if (v == null) return true;
+        return switch (v.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes", "да" -> true;
+            case "false", "0", "no", "нет" -> false;
+            default -> throw new IllegalArgumentException("inStock: ожидается true/false");
+        };
+    }
+
+    private static String trimToNull(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+
+    // ================= WRITING =================
+
+    private void flush(Map<String, Row> chunk, Report report) {
+        if (chunk.isEmpty()) return;
+        List<Row> rows = new ArrayList<>(chunk.values());
+        chunk.clear();
+
+        try {
+            ChunkResult result = transactionTemplate.execute(status -> {
+                Map<String, Long> existing = productRepository.findIdsBySku(
+                        rows.stream().map(r -> r.product().getSku()).toList());
+
+                List<Product> inserts = new ArrayList<>();
+                List<Product> updates = new ArrayList<>();
+                List<Long> updatedIds = new ArrayList<>();
+                for (Row r : rows) {
+                    Long id = existing.get(r.product().getSku());
+                    if (id == null) {
+                        inserts.add(r.product());
+                    } else {
+                        r.product().setId(id);
+                        updates.add(r.product());
+                        updatedIds.add(id);
+                    }
+                }
+                productRepository.batchInsert(inserts);
+                productRepository.batchUpdateBySku(updates);
+                // новые размеры/цвета должны появиться в вариантах вместе с товаром, а не в памяти одного инстанса
+                variantService.syncImported(updates);
+                return new ChunkResult(inserts.size(), updatedIds);
+            });
+            // в отчёт — только после коммита: откаченная пачка не должна попасть в обновлённые
+            report.inserted += result.inserted();
+            report.updated += result.updatedIds().size();
+            report.updatedIds.addAll(result.updatedIds());
+        } catch (DataAccessException e) {
+            // пачка откатилась целиком — помечаем все её строки
+            log.warn("Product import chunk failed: rows={}, error={}", rows.size(), e.getMostSpecificCause().getMessage());
+            String message = "Ошибка записи пачки: " + e.getMostSpecificCause().getMessage();
+            for (Row r : rows) {
+                report.error(r.line(), r.product().getSku(), message);
+            }
+        }
+    }
+}
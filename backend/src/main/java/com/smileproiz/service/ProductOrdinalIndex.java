@@ -0,0 +1,168 @@
+package com.smileproiz.service;
+
+import com.smileproiz.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Основа индексов каталога в памяти: товары лежат по плотным порядковым номерам (ordinal),
+ * а сам индекс (термы, битовые карты) хранит только номера.
+ *
+ * Номера идут в порядке id: при обновлении товар сохраняет свой номер, новый товар (id больше всех) получает
+ * следующий. Удаление оставляет дыру; когда дыр больше четверти — номера уплотняются без похода в БД.
+ * Поэтому объём работы на запрос зависит от размера каталога, а не от числа правок с последней перестройки.
+ */
+public abstract class ProductOrdinalIndex {
+
+    // доля дыр, после которой номера уплотняются; на маленьком каталоге дыры не мешают
+    private static final double MAX_HOLE_SHARE = 0.25;
+    private static final int MIN_COMPACT_CAPACITY = 64;
+
+    private final Map<Long, Integer> ordinalById = new HashMap<>();
+    private final List<Product> byOrdinal = new ArrayList<>();
+    private long maxId = Long.MIN_VALUE;
+
+    protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    // Сбросить всё, что индекс построил поверх номеров
+    protected abstract void clearLocked();
+
+    // Проиндексировать товар под номером ordinal (номер свободен)
+    protected abstract void addLocked(Product product, int ordinal);
+
+    // Убрать из индекса товар, который был проиндексирован под номером ordinal
+    protected abstract void removeLocked(Product product, int ordinal);
+
+    // Вызывается после полной перестройки (для лога)
+    protected void afterRebuildLocked() {
+    }
+
+    // ================= LOADING =================
+
+    // Загрузка идёт под write-lock: index/remove, пришедшие во время загрузки, применятся после неё
+    public void ensureLoaded(Supplier<? extends Collection<Product>> loader) {
+        if (loaded) return;
+        lock.writeLock().lock();
+        try {
+            if (loaded) return;
+            rebuildLocked(loader.get());
+            afterRebuildLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            rebuildLocked(products);
+            afterRebuildLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuildLocked(Collection<Product> products) {
+        clearLocked();
+        ordinalById.clear();
+        byOrdinal.clear();
+        maxId = Long.MIN_VALUE;
+
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(Comparator.comparing(Product::getId));
+        for (Product p : sorted) {
+            appendLocked(p);
+        }
+        loaded = true;
+    }
+
+    // После массового изменения каталога: индекс перестроится из БД при следующем запросе (один раз)
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ================= INCREMENTAL UPDATES =================
+
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return; // ещё не строился — при загрузке товар прочитается из БД
+            Integer ordinal = ordinalById.get(product.getId());
+            if (ordinal != null) {
+                removeLocked(byOrdinal.get(ordinal), ordinal);
+                byOrdinal.set(ordinal, product);
+                addLocked(product, ordinal);
+            } else if (product.getId() > maxId) {
+                appendLocked(product);
+            } else {
+                // id меньше уже проиндексированных (вставка с явным id) — пересобираем, чтобы сохранить порядок
+                List<Product> products = liveProducts();
+                products.add(product);
+                rebuildLocked(products);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return;
+            Integer ordinal = ordinalById.remove(productId);
+            if (ordinal == null) return;
+            removeLocked(byOrdinal.set(ordinal, null), ordinal);
+
+            int capacity = byOrdinal.size();
+            if (capacity >= MIN_COMPACT_CAPACITY && capacity - ordinalById.size() > capacity * MAX_HOLE_SHARE) {
+                rebuildLocked(liveProducts());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void appendLocked(Product product) {
+        int ordinal = byOrdinal.size();
+        ordinalById.put(product.getId(), ordinal);
+        byOrdinal.add(product);
+        maxId = Math.max(maxId, product.getId());
+        addLocked(product, ordinal);
+    }
+
+    private List<Product> liveProducts() {
+        List<Product> products = new ArrayList<>(ordinalById.size() + 1);
+        for (Product p : byOrdinal) {
+            if (p != null) products.add(p);
+        }
+        return products;
+    }
+
+    // ================= ACCESS (под read- или write-lock) =================
+
+    // Размер массивов «по номеру»: живые товары плюс дыры
+    protected int capacity() {
+        return byOrdinal.size();
+    }
+
+    protected int size() {
+        return ordinalById.size();
+    }
+
+    protected Product product(int ordinal) {
+        return byOrdinal.get(ordinal);
+    }
+}
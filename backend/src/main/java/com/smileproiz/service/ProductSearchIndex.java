@@ -0,0 +1,242 @@
+package com.smileproiz.service;
+
+import com.smileproiz.dto.ProductSearchResultDto;
+import com.smileproiz.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Инвертированный индекс каталога в памяти: терм -> список (порядковый номер товара, вес).
+ * Обновляется точечно из ProductService (add/update/delete), полностью строится только при первом поиске.
+ * Номера товаров и загрузка — в ProductOrdinalIndex.
+ */
+@Component
+public class ProductSearchIndex extends ProductOrdinalIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    // вес поля: совпадение в названии важнее, чем в описании
+    private static final int NAME_WEIGHT = 5;
+    private static final int TAG_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 3;
+    private static final int MATERIAL_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // точное совпадение терма ценится выше, чем совпадение по префиксу
+    private static final int EXACT_BONUS = 2;
+
+    // префикс из одной буквы раскрывается почти во весь словарь — ищем его только точно
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    // При равном score выше товар с меньшим номером, т.е. с меньшим id (см. ProductOrdinalIndex)
+    private final NavigableMap<String, Posting> postings = new TreeMap<>();
+
+    // Список вхождений терма: параллельные массивы без боксинга
+    private static final class Posting {
+        int[] ordinals = new int[4];
+        int[] weights = new int[4];
+        int size;
+
+        void add(int ordinal, int weight) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ordinals[size] = ordinal;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) {
+                    size--;
+                    ordinals[i] = ordinals[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    // ================= INDEXING =================
+
+    @Override
+    protected void clearLocked() {
+        postings.clear();
+    }
+
+    @Override
+    protected void afterRebuildLocked() {
+        log.info("Search index built: products={}, terms={}", size(), postings.size());
+    }
+
+    @Override
+    protected void addLocked(Product p, int ordinal) {
+        terms(p).forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new Posting()).add(ordinal, weight));
+    }
+
+    // Термы старой версии товара считаются заново — хранить их отдельно на каждый номер не нужно
+    @Override
+    protected void removeLocked(Product p, int ordinal) {
+        for (String term : terms(p).keySet()) {
+            Posting posting = postings.get(term);
+            if (posting == null) continue;
+            posting.remove(ordinal);
+            if (posting.size == 0) postings.remove(term);
+        }
+    }
+
+    private static Map<String, Integer> terms(Product p) {
+        Map<String, Integer> terms = new HashMap<>();
+        collect(terms, p.getName(), NAME_WEIGHT);
+        collect(terms, p.getTag(), TAG_WEIGHT);
+        collect(terms, p.getCategory(), CATEGORY_WEIGHT);
+        collect(terms, p.getMaterial(), MATERIAL_WEIGHT);
+        collect(terms, p.getDescription(), DESCRIPTION_WEIGHT);
+        return terms;
+    }
+
+    private static void collect(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Math::max);
+        }
+    }
+
+    // ================= QUERY =================
+
+    public ProductSearchResultDto search(String query, int page, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new ProductSearchResultDto(List.of(), 0, page, limit);
+        }
+
+        lock.readLock().lock();
+        try {
+            int capacity = capacity();
+            int[] scores = new int[capacity];
+            // matched[ord] — сколько слов запроса товар уже покрыл (AND по всем словам)
+            byte[] matched = new byte[capacity];
+            int[] hits = new int[capacity];
+            int hitCount = 0;
+
+            int n = Math.min(tokens.size(), Byte.MAX_VALUE);
+            for (int i = 0; i < n; i++) {
+                String token = tokens.get(i);
+                boolean last = i == n - 1;
+
+                Posting exact = postings.get(token);
+                if (exact != null) {
+                    hitCount = accumulate(exact, EXACT_BONUS, i, last, scores, matched, hits, hitCount);
+                }
+                if (token.length() >= MIN_PREFIX_LENGTH) {
+                    for (Posting posting : postings.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                        hitCount = accumulate(posting, 1, i, last, scores, matched, hits, hitCount);
+                    }
+                }
+            }
+
+            return new ProductSearchResultDto(topPage(hits, hitCount, scores, page, limit), hitCount, page, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Начисляет вес товарам, совпавшим со всеми предыдущими словами; на последнем слове собирает результат
+    private static int accumulate(Posting posting, int multiplier, int tokenIndex, boolean last,
+                                  int[] scores, byte[] matched, int[] hits, int hitCount) {
+        for (int j = 0; j < posting.size; j++) {
+            int ord = posting.ordinals[j];
+            if (matched[ord] == tokenIndex) {
+                matched[ord] = (byte) (tokenIndex + 1);
+                scores[ord] += posting.weights[j] * multiplier;
+                if (last) hits[hitCount++] = ord;
+            } else if (matched[ord] == tokenIndex + 1) {
+                scores[ord] += posting.weights[j] * multiplier;
+            }
+        }
+        return hitCount;
+    }
+
+    // Top-k через min-кучу: сортируем не все совпадения, а только нужные (page + 1) * limit
+    private List<Product> topPage(int[] hits, int hitCount, int[] scores, int page, int limit) {
+        long offset = (long) page * limit;
+        if (offset >= hitCount) return List.of();
+        int k = (int) Math.min(offset + limit, hitCount);
+
+        // ключ: score в старших битах, меньший ordinal выигрывает при равенстве
+        long[] heap = new long[k];
+        int size = 0;
+        for (int i = 0; i < hitCount; i++) {
+            int ord = hits[i];
+            long key = ((long) scores[ord] << 32) | (Integer.MAX_VALUE - ord);
+            if (size < k) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+
+        Arrays.sort(heap, 0, size);
+        List<Product> items = new ArrayList<>(limit);
+        for (int i = size - 1 - (int) offset; i >= 0 && items.size() < limit; i--) {
+            items.add(product(Integer.MAX_VALUE - (int) heap[i]));
+        }
+        return items;
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= heap[i]) return;
+            long tmp = heap[parent]; heap[parent] = heap[i]; heap[i] = tmp;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) return;
+            int smallest = (left + 1 < size && heap[left + 1] < heap[left]) ? left + 1 : left;
+            if (heap[i] <= heap[smallest]) return;
+            long tmp = heap[i]; heap[i] = heap[smallest]; heap[smallest] = tmp;
+            i = smallest;
+        }
+    }
+
+    // ================= NORMALIZATION =================
+
+    // Нижний регистр + "ё" -> "е", режем по всему, что не буква и не цифра
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) return tokens;
+
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
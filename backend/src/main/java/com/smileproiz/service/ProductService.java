@@ -1,36 +1,361 @@
 package com.smileproiz.service;
 
+import com.smileproiz.dto.CatalogCacheStatsDto;
+import com.smileproiz.dto.ProductFilterDto;
+import com.smileproiz.dto.ProductFilterResultDto;
+import com.smileproiz.dto.ProductPageDto;
+import com.smileproiz.dto.ProductSearchResultDto;
+import com.smileproiz.handler.CatalogSessionRegistry;
 import com.smileproiz.model.Product;
+import com.smileproiz.model.ProductVariant;
 import com.smileproiz.repository.ProductRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
 
 @Service
 public class ProductService {
 
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final ProductRepository productRepository;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final ProductVariantService variantService;
+    private final CatalogSessionRegistry catalogEvents;
+
+    // Старый GET /api/products без пагинации (для старых сборок приложения) отдаёт не больше N товаров
+    @Value("${app.catalog.legacy-max-items:1000}")
+    private int legacyMaxItems;
+
+    // Максимальный возраст снимка каталога (мс): подхватывает изменения, сделанные мимо этого инстанса.
+    // 0 — без ограничения, снимок живёт до ближайшего add/update/delete.
+    @Value("${app.catalog.cache.max-age-ms:60000}")
+    private long cacheMaxAgeMs;
+
+    // ================= CATALOG SNAPSHOT =================
+    // Неизменяемый снимок GET /api/products; version — номер изменения каталога, на котором он построен.
+    // truncated — в БД есть товары сверх legacy-max-items, клиенту отдаётся только начало каталога.
+    // contentTag — хэш содержимого (см. contentTag)
+    public record CatalogSnapshot(List<Product> products, boolean truncated, String contentTag, long version,
+                                  long lastModified, long builtAt) {
+
+        // ETag из содержимого: один и тот же каталог даёт одно значение на любом инстансе и после рестарта,
+        // а изменение мимо этого инстанса меняет его при ближайшей перестройке.
+        // Слабый (W/): один и тот же снимок отдаётся в JSON, Smile или CBOR, к тому же Tomcat не сжимает
+        // ответы с сильным ETag
+        public String etag() {
+            return "W/\"" + contentTag + "\"";
+        }
+    }
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final AtomicLong catalogLastModified = new AtomicLong(System.currentTimeMillis());
+    private final ReentrantLock rebuildLock = new ReentrantLock();
 
-    public ProductService(ProductRepository productRepository) {
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong cacheRebuilds = new AtomicLong();
+
+    public ProductService(ProductRepository productRepository,
+                          ProductSearchIndex searchIndex,
+                          ProductFacetIndex facetIndex,
+                          ProductVariantService variantService,
+                          CatalogSessionRegistry catalogEvents,
+                          MeterRegistry meterRegistry) {
         this.productRepository = productRepository;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.variantService = variantService;
+        this.catalogEvents = catalogEvents;
+
+        // те же счётчики, что в /api/products/cache-stats
+        FunctionCounter.builder("catalog.cache", cacheHits, AtomicLong::get).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("catalog.cache", cacheMisses, AtomicLong::get).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("catalog.cache.rebuilds", cacheRebuilds, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("catalog.cache.size", snapshot, s -> s.get() == null ? 0 : s.get().products().size())
+                .register(meterRegistry);
     }
 
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return getCatalog().products();
+    }
+
+    // Каталог вместе с версией — для ETag / Last-Modified в контроллере
+    public CatalogSnapshot getCatalog() {
+        CatalogSnapshot current = snapshot.get();
+        if (isFresh(current)) {
+            cacheHits.incrementAndGet();
+            return current;
+        }
+        cacheMisses.incrementAndGet();
+        return rebuildSnapshot();
+    }
+
+    private boolean isFresh(CatalogSnapshot s) {
+        return s != null
+                && s.version() == catalogVersion.get()
+                && (cacheMaxAgeMs <= 0 || System.currentTimeMillis() - s.builtAt() < cacheMaxAgeMs);
+    }
+
+    // Один поток идёт в БД, остальные ждут и берут уже готовый снимок
+    private CatalogSnapshot rebuildSnapshot() {
+        rebuildLock.lock();
+        try {
+            CatalogSnapshot current = snapshot.get();
+            if (isFresh(current)) {
+                return current;
+            }
+
+            // версию фиксируем до чтения: если во время чтения прошло изменение, снимок сразу будет устаревшим
+            long version = catalogVersion.get();
+            // на один товар больше лимита — так видно, что каталог обрезан, без отдельного COUNT
+            List<Product> products = productRepository.findAllByOrderByIdAsc(Limit.of(legacyMaxItems + 1));
+            boolean truncated = products.size() > legacyMaxItems;
+            if (truncated) {
+                products = products.subList(0, legacyMaxItems);
+                log.info("Legacy catalog truncated to {} items, the rest is only available via /api/products/page",
+                        legacyMaxItems);
+            }
+            String tag = contentTag(products, truncated);
+            long lastModified = catalogLastModified.get();
+            if (current != null && !current.contentTag().equals(tag)) {
+                // каталог поменялся мимо этого инстанса (другой инстанс, импорт там, правка в БД)
+                lastModified = catalogLastModified.accumulateAndGet(System.currentTimeMillis(), Math::max);
+                log.info("Catalog changed outside this instance, snapshot version={}", version);
+            }
+            CatalogSnapshot rebuilt = new CatalogSnapshot(
+                    List.copyOf(products), truncated, tag, version, lastModified, System.currentTimeMillis());
+
+            snapshot.accumulateAndGet(rebuilt, (old, fresh) ->
+                    old != null && old.version() > fresh.version() ? old : fresh);
+            cacheRebuilds.incrementAndGet();
+            log.debug("Catalog snapshot rebuilt: version={}, size={}", version, products.size());
+            return rebuilt;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Write-through: после изменения в БД поднимаем версию и правим снимок без похода в БД.
+    // Если снимок уже успел устареть или патч невозможен (patch вернул null) — просто сбрасываем его.
+    // Возвращает новую версию каталога
+    private long patchSnapshot(UnaryOperator<List<Product>> patch) {
+        long now = System.currentTimeMillis();
+        catalogLastModified.accumulateAndGet(now, Math::max);
+        long version = catalogVersion.incrementAndGet();
+        snapshot.updateAndGet(s -> {
+            if (s == null || s.version() != version - 1) {
+                return null;
+            }
+            List<Product> patched = patch.apply(new ArrayList<>(s.products()));
+            return patched == null ? null
+                    : new CatalogSnapshot(List.copyOf(patched), s.truncated(), contentTag(patched, s.truncated()),
+                            version, now, s.builtAt());
+        });
+        return version;
+    }
+
+    // SHA-256 по id и полям товаров в порядке снимка (первые 16 байт)
+    private static String contentTag(List<Product> products, boolean truncated) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        StringBuilder row = new StringBuilder();
+        for (Product p : products) {
+            row.setLength(0);
+            row.append(p.getId());
+            for (Object value : catalogFields(p).values()) {
+                // \u0001 — разделитель, \u0000 — null, чтобы null и "null" не совпали
+                row.append('\u0001').append(value == null ? "\u0000" : value);
+            }
+            digest.update(row.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) (truncated ? 1 : 0));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16));
+    }
+
+    public CatalogCacheStatsDto getCacheStats() {
+        CatalogSnapshot current = snapshot.get();
+        return new CatalogCacheStatsDto(
+                cacheHits.get(),
+                cacheMisses.get(),
+                cacheRebuilds.get(),
+                catalogVersion.get(),
+                current == null ? 0 : current.products().size(),
+                current == null ? -1 : System.currentTimeMillis() - current.builtAt()
+        );
+    }
+
+    // ================= KEYSET PAGINATION =================
+    public ProductPageDto getProductPage(String sort, String cursor, Integer limit) {
+        String sortKey = (sort == null || sort.isBlank()) ? "id" : sort.trim().toLowerCase(Locale.ROOT);
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+
+        // берём на один элемент больше, чтобы понять, есть ли следующая страница
+        Limit fetch = Limit.of(pageSize + 1);
+        String[] after = (cursor == null || cursor.isBlank()) ? null : decodeCursor(sortKey, cursor);
+
+        List<Product> rows = switch (sortKey) {
+            case "id" -> after == null
+                    ? productRepository.findAllByOrderByIdAsc(fetch)
+                    : productRepository.findByIdGreaterThanOrderByIdAsc(parseId(after[1]), fetch);
+            case "price" -> after == null
+                    ? productRepository.findAllByOrderByPriceAscIdAsc(fetch)
+                    : productRepository.findPageAfterPrice(parsePrice(after[2]), parseId(after[1]), fetch);
+            // товары без названия идут в конце (NULLS LAST): после такого курсора — только они
+            case "name" -> after == null
+                    ? productRepository.findFirstPageByName(fetch)
+                    : after[2] == null
+                    ? productRepository.findPageAfterNullName(parseId(after[1]), fetch)
+                    : productRepository.findPageAfterName(after[2], parseId(after[1]), fetch);
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Неизвестная сортировка: " + sortKey + " (доступно: id, price, name)");
+        };
+
+        if (rows.size() <= pageSize) {
+            return new ProductPageDto(rows, null);
+        }
+
+        List<Product> page = rows.subList(0, pageSize);
+        return new ProductPageDto(page, encodeCursor(sortKey, page.get(pageSize - 1)));
+    }
+
+    // Курсор: base64url("sort|id|ключ сортировки") — ключ идёт последним, т.к. name может содержать '|'.
+    // Товар без названия: "name|id" без ключа — чтобы не спутать null с пустой строкой
+    public String encodeCursor(String sortKey, Product last) {
+        String key = switch (sortKey) {
+            case "price" -> String.valueOf(last.getPrice());
+            case "name" -> last.getName();
+            default -> "";
+        };
+        String raw = sortKey + "|" + last.getId() + (key == null ? "" : "|" + key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String sortKey, String cursor) {
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            parts = raw.split("\\|", 3);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный курсор");
+        }
+        boolean nullName = parts.length == 2 && "name".equals(sortKey);
+        if ((parts.length != 3 && !nullName) || !parts[0].equals(sortKey)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Курсор не подходит к сортировке " + sortKey);
+        }
+        return nullName ? new String[]{parts[0], parts[1], null} : parts;
+    }
+
+    private Long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный курсор");
+        }
+    }
+
+    private int parsePrice(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный курсор");
+        }
+    }
+
+    // ================= SEARCH =================
+    public ProductSearchResultDto search(String query, Integer page, Integer limit) {
+        int pageNumber = (page == null || page < 0) ? 0 : page;
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+
+        searchIndex.ensureLoaded(productRepository::findAll);
+        return searchIndex.search(query, pageNumber, pageSize);
+    }
+
+    // ================= FACETED FILTER =================
+    public ProductFilterResultDto filter(ProductFilterDto filter) {
+        int pageNumber = (filter.getPage() == null || filter.getPage() < 0) ? 0 : filter.getPage();
+        // limit=0 — только счётчики фасетов (например, для экрана категорий в админке)
+        int pageSize = filter.getLimit() == null || filter.getLimit() < 0
+                ? DEFAULT_PAGE_SIZE
+                : Math.min(filter.getLimit(), MAX_PAGE_SIZE);
+
+        facetIndex.ensureLoaded(productRepository::findAll);
+        return facetIndex.filter(filter, pageNumber, pageSize);
+    }
+
+    // ================= VARIANTS =================
+    public List<ProductVariant> getVariants(Long productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        return variantService.getVariants(product);
     }
 
     public Product addProduct(Product product) {
         log.info("Add product: name={}, price={}", product.getName(), product.getPrice());
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        variantService.syncVariants(saved);
+        searchIndex.index(saved);
+        facetIndex.index(saved);
+
+        // id растут, поэтому новый товар всегда в конце снимка; не влезает в лимит — снимок перестроится
+        // и пометит каталог обрезанным. Строка уже в БД, и параллельная перестройка могла её прочитать —
+        // тогда второй раз не добавляем
+        long version = patchSnapshot(products -> {
+            if (products.stream().anyMatch(p -> p.getId().equals(saved.getId()))) {
+                return products;
+            }
+            if (products.size() >= legacyMaxItems) {
+                return null;
+            }
+            products.add(saved);
+            return products;
+        });
+        catalogEvents.created(saved, version);
+        return saved;
     }
 
     public Product updateProduct(Long id, Product product) {
         Product existing = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
+        Map<String, Object> before = catalogFields(existing);
+
+        if (product.getSku() != null) {
+            existing.setSku(product.getSku().isBlank() ? null : product.getSku().trim());
+        }
         existing.setName(product.getName());
         existing.setPrice(product.getPrice());
         existing.setImageUrl(product.getImageUrl());
@@ -47,7 +372,17 @@ public class ProductService {
         existing.setColors(product.getColors());
 
         log.info("Update product id={}", id);
-        return productRepository.save(existing);
+        Product saved = productRepository.save(existing);
+        variantService.syncVariants(saved);
+        searchIndex.index(saved);
+        facetIndex.index(saved);
+
+        long version = patchSnapshot(products -> {
+            products.replaceAll(p -> p.getId().equals(id) ? saved : p);
+            return products;
+        });
+        catalogEvents.updated(saved, changedFields(before, catalogFields(saved)), version);
+        return saved;
     }
 
     public void deleteProduct(Long id) {
@@ -56,5 +391,58 @@ public class ProductService {
         }
         log.warn("Delete product id={}", id);
         productRepository.deleteById(id);
+        variantService.removeProduct(id);
+        searchIndex.remove(id);
+        facetIndex.remove(id);
+
+        long version = patchSnapshot(products -> {
+            // полный снимок после удаления должен подтянуть следующий товар из БД — перестраиваем
+            if (products.size() >= legacyMaxItems) {
+                return null;
+            }
+            products.removeIf(p -> p.getId().equals(id));
+            return products;
+        });
+        catalogEvents.deleted(id, version);
+    }
+
+    // После массового импорта: кэши и индексы сбрасываются один раз на весь импорт, а не на каждую строку
+    public void afterBulkChange(Collection<Long> updatedIds) {
+        variantService.invalidate(updatedIds);
+        searchIndex.invalidate();
+        facetIndex.invalidate();
+        long version = patchSnapshot(products -> null);
+        catalogEvents.reload(version);
+        log.info("Catalog invalidated after bulk change: version={}, updated={}", version, updatedIds.size());
+    }
+
+    // ================= CATALOG EVENTS =================
+    // Поля товара так, как их видит клиент (имена — как в JSON)
+    private static Map<String, Object> catalogFields(Product p) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("sku", p.getSku());
+        fields.put("name", p.getName());
+        fields.put("price", p.getPrice());
+        fields.put("imageUrl", p.getImageUrl());
+        fields.put("category", p.getCategory());
+        fields.put("description", p.getDescription());
+        fields.put("material", p.getMaterial());
+        fields.put("tag", p.getTag());
+        fields.put("inStock", p.isInStock());
+        fields.put("size", p.getSize());
+        fields.put("heights", p.getHeights());
+        fields.put("color", p.getColor());
+        fields.put("colors", p.getColors());
+        return fields;
+    }
+
+    private static Map<String, Object> changedFields(Map<String, Object> before, Map<String, Object> after) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        after.forEach((field, value) -> {
+            if (!Objects.equals(before.get(field), value)) {
+                changes.put(field, value);
+            }
+        });
+        return changes;
     }
-}
\ No newline at end of file
+}
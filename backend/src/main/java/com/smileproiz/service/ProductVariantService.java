@@ -0,0 +1,225 @@
+package com.smileproiz.service;
+
+import com.smileproiz.model.Product;
+import com.smileproiz.model.ProductVariant;
+import com.smileproiz.repository.ProductVariantRepository;
+import com.smileproiz.util.CsvValues;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Варианты товаров (размер × цвет) с индексом в памяти: по id варианта и по (товар, размер, цвет) — O(1).
+ * Варианты товара подгружаются из БД при первом обращении и пересчитываются при add/update товара и в транзакции
+ * пачки импорта. Товар без строк вариантов (создан до их появления или импортом) получает их при первом чтении —
+ * поэтому и GET /api/products/{id}/variants, и добавление в корзину могут один раз записать варианты в БД.
+ */
+@Service
+public class ProductVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductVariantService.class);
+
+    // то же, что подставляет приложение, когда размер/цвет не выбран
+    public static final String DEFAULT_SIZE = "Один размер";
+    public static final String DEFAULT_COLOR = "Нет цвета";
+
+    private final ProductVariantRepository variantRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // productId -> (ключ размер+цвет -> активный вариант)
+    private final Map<Long, Map<String, ProductVariant>> byProduct = new ConcurrentHashMap<>();
+    private final Map<Long, ProductVariant> byId = new ConcurrentHashMap<>();
+
+    public ProductVariantService(ProductVariantRepository variantRepository,
+                                 TransactionTemplate transactionTemplate) {
+        this.variantRepository = variantRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public List<ProductVariant> getVariants(Product product) {
+        List<ProductVariant> variants = new ArrayList<>(variantsOf(product).values());
+        variants.sort(Comparator.comparing(ProductVariant::getId));
+        return variants;
+    }
+
+    // ================= LOOKUP =================
+
+    // Вариант для корзины: по variantId, либо по размеру и цвету. Несуществующий вариант — 400.
+    public ProductVariant resolve(Product product, Long variantId, String size, String color) {
+        if (variantId != null) {
+            ProductVariant variant = byId.get(variantId);
+            if (variant == null) {
+                variant = reload(product).values().stream()
+                        .filter(v -> v.getId().equals(variantId))
+                        .findFirst()
+                        .orElse(null);
+            }
+            if (variant == null || !variant.getProductId().equals(product.getId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Вариант " + variantId + " не найден у товара " + product.getName());
+            }
+            return variant;
+        }
+
+        String s = (size == null || size.isBlank()) ? DEFAULT_SIZE : size.trim();
+        String c = (color == null || color.isBlank()) ? DEFAULT_COLOR : color.trim();
+
+        ProductVariant variant = variantsOf(product).get(key(s, c));
+        if (variant == null) {
+            // вариант мог появиться на другом инстансе — перечитываем товар только на промахе
+            variant = reload(product).get(key(s, c));
+        }
+        if (variant == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Товар " + product.getName() + " недоступен в варианте: " + s + " / " + c);
+        }
+        return variant;
+    }
+
+    private Map<String, ProductVariant> variantsOf(Product product) {
+        Map<String, ProductVariant> cached = byProduct.get(product.getId());
+        return cached != null ? cached : reload(product);
+    }
+
+    private Map<String, ProductVariant> reload(Product product) {
+        List<ProductVariant> rows = variantRepository.findByProductId(product.getId());
+        if (rows.isEmpty()) {
+            // товар создан до появления вариантов (или импортом) — разбираем его CSV один раз
+            rows = persist(product, rows);
+        }
+        return install(product.getId(), rows);
+    }
+
+    // ================= SYNC WITH PRODUCT =================
+
+    public void syncVariants(Product product) {
+        List<ProductVariant> rows = persist(product, variantRepository.findByProductId(product.getId()));
+        install(product.getId(), rows);
+    }
+
+    // Импорт, внутри транзакции пачки: варианты обновлённых товаров приводятся к новым size/colors сразу в БД,
+    // так их увидит любой инстанс. Один SELECT на пачку; товары без строк вариантов получат их при первом чтении
+    public void syncImported(List<Product> products) {
+        if (products.isEmpty()) return;
+        Map<Long, List<ProductVariant>> existing = new HashMap<>();
+        for (ProductVariant v : variantRepository.findByProductIdIn(products.stream().map(Product::getId).toList())) {
+            existing.computeIfAbsent(v.getProductId(), id -> new ArrayList<>()).add(v);
+        }
+
+        List<ProductVariant> rows = new ArrayList<>();
+        for (Product product : products) {
+            List<ProductVariant> current = existing.get(product.getId());
+            if (current != null) {
+                rows.addAll(reconcile(product, current));
+            }
+        }
+        variantRepository.saveAll(rows);
+    }
+
+    // После коммита импорта: варианты в БД уже сверены, здесь только сбрасываем их копию в памяти
+    public void invalidate(Collection<Long> productIds) {
+        for (Long id : productIds) {
+            Map<String, ProductVariant> removed = byProduct.remove(id);
+            if (removed != null) {
+                removed.values().forEach(v -> byId.remove(v.getId()));
+            }
+        }
+    }
+
+    public void removeProduct(Long productId) {
+        Map<String, ProductVariant> removed = byProduct.remove(productId);
+        if (removed != null) {
+            removed.values().forEach(v -> byId.remove(v.getId()));
+        }
+        variantRepository.deleteByProductId(productId);
+    }
+
+    // Приводит строки вариантов к текущим size/colors товара и пишет их
+    private List<ProductVariant> persist(Product product, List<ProductVariant> existing) {
+        List<ProductVariant> rows = reconcile(product, existing);
+
+        // все строки товара — одной транзакцией: либо варианты целиком приведены к товару, либо ничего
+        try {
+            return transactionTemplate.execute(status -> variantRepository.saveAll(rows));
+        } catch (DataIntegrityViolationException e) {
+            // параллельный запрос успел создать те же варианты — берём его результат
+            log.debug("Variants of product {} created concurrently, reloading", product.getId());
+            return variantRepository.findByProductId(product.getId());
+        }
+    }
+
+    // Строки вариантов под текущие size/colors товара: новые создаёт, лишние выключает (в БД ничего не пишет)
+    private static List<ProductVariant> reconcile(Product product, List<ProductVariant> existing) {
+        Map<String, ProductVariant> byKey = new HashMap<>();
+        for (ProductVariant v : existing) {
+            byKey.put(key(v.getSize(), v.getColor()), v);
+        }
+
+        List<ProductVariant> rows = new ArrayList<>(existing);
+        Map<String, Boolean> wanted = new HashMap<>();
+        List<String> colors = colorsOf(product);
+        for (String size : sizesOf(product)) {
+            for (String color : colors.isEmpty() ? List.of(DEFAULT_COLOR) : colors) {
+                String key = key(size, color);
+                wanted.put(key, true);
+                if (!byKey.containsKey(key)) {
+                    ProductVariant created = new ProductVariant(product.getId(), size, color);
+                    byKey.put(key, created);
+                    rows.add(created);
+                }
+            }
+        }
+        for (ProductVariant v : rows) {
+            v.setActive(wanted.containsKey(key(v.getSize(), v.getColor())));
+        }
+        return rows;
+    }
+
+    private Map<String, ProductVariant> install(Long productId, List<ProductVariant> rows) {
+        Map<String, ProductVariant> indexed = new HashMap<>();
+        for (ProductVariant v : rows) {
+            if (v.isActive()) {
+                indexed.put(key(v.getSize(), v.getColor()), v);
+                byId.put(v.getId(), v);
+            } else {
+                byId.remove(v.getId());
+            }
+        }
+        Map<String, ProductVariant> immutable = Map.copyOf(indexed);
+        byProduct.put(productId, immutable);
+        return immutable;
+    }
+
+    // ================= PARSING =================
+
+    static List<String> sizesOf(Product product) {
+        List<String> sizes = CsvValues.split(product.getSize());
+        return sizes.isEmpty() ? List.of(DEFAULT_SIZE) : sizes;
+    }
+
+    // Цвета товара: список colors плюс одиночное поле color (пустой список, если цвета нет; фасеты — тоже по нему)
+    static List<String> colorsOf(Product product) {
+        List<String> colors = CsvValues.split(product.getColors());
+        if (product.getColor() != null && !product.getColor().isBlank() && !colors.contains(product.getColor().trim())) {
+            colors.add(product.getColor().trim());
+        }
+        return colors;
+    }
+
+    private static String key(String size, String color) {
+        return size.toLowerCase(Locale.ROOT) + '\u0000' + color.toLowerCase(Locale.ROOT);
+    }
+}
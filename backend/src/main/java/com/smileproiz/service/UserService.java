@@ -5,7 +5,10 @@ import com.smileproiz.dto.UpdateUserDto;
 import com.smileproiz.model.User;
 import com.smileproiz.repository.UserRepository;
 import com.smileproiz.security.JwtService;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.smileproiz.security.PasswordHashingService;
+import com.smileproiz.security.TokenVersionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -13,14 +16,19 @@ import java.util.Optional;
 @Service
 public class UserService {
 
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashing;
     private final JwtService jwtService;
+    private final TokenVersionRegistry tokenVersions;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService) {
+    public UserService(UserRepository userRepository, PasswordHashingService passwordHashing, JwtService jwtService,
+                       TokenVersionRegistry tokenVersions) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashing = passwordHashing;
         this.jwtService = jwtService;
+        this.tokenVersions = tokenVersions;
     }
 
     // ================= REGISTRATION =================
@@ -31,7 +39,7 @@ public class UserService {
             throw new RuntimeException("Пользователь с таким email уже существует");
         });
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashing.encode(user.getPassword()));
 
         if (user.getRole() == null || user.getRole().isBlank())
             user.setRole("user");
@@ -43,18 +51,31 @@ public class UserService {
     }
 
     // ================= LOGIN =================
-    public String loginAndGetToken(String email, String password) {
+    // токен и сам пользователь одним поиском по email (ответ /login отдаёт оба)
+    public record LoginResult(String token, User user) {}
+
+    public LoginResult login(String email, String password) {
         String normalizedEmail = email.trim().toLowerCase();
 
         User user = userRepository.findByEmail(normalizedEmail)
                 .orElseThrow(() -> new RuntimeException("Неверный email или пароль"));
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        // 🔐 BCrypt — на отдельном ограниченном пуле; при перегрузке 429/503
+        if (!passwordHashing.matches(password, user.getPassword())) {
             throw new RuntimeException("Неверный email или пароль");
         }
 
-        // генерим JWT
-        return jwtService.generateToken(user.getEmail(), user.getRole());
+        // сменилась стоимость BCrypt — пересчитываем хэш, пока знаем пароль
+        if (passwordHashing.needsRehash(user.getPassword())) {
+            String upgraded = passwordHashing.encodeIfIdle(password);
+            if (upgraded != null && userRepository.updatePasswordHash(user.getId(), user.getPassword(), upgraded) == 1) {
+                log.info("Password hash upgraded: userId={}", user.getId());
+            }
+        }
+
+        // генерим JWT (id, роль и версия токенов внутри — фильтру не нужен запрос в БД)
+        String token = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole(), user.getTokenVersion());
+        return new LoginResult(token, user);
     }
 
     // если где-то ещё нужен сам User по email
@@ -91,12 +112,23 @@ public class UserService {
         }
 
         if (dto.getPassword() != null && !dto.getPassword().isBlank()) {
-            user.setPassword(passwordEncoder.encode(dto.getPassword()));
+            user.setPassword(passwordHashing.encode(dto.getPassword()));
+            // 🔐 смена пароля отзывает все выданные токены
+            return revokeTokens(user);
         }
 
         return userRepository.save(user);
     }
 
+    // Поднимает версию токенов: старые токены отклоняются фильтром. Вызывать и при смене роли —
+    // роль в claims-only режиме берётся из токена.
+    public User revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User saved = userRepository.save(user);
+        tokenVersions.update(saved.getId(), saved.getTokenVersion());
+        return saved;
+    }
+
     // ================= UPDATE PUSH SETTINGS =================
     public User updatePushSetting(Long id, PushSettingRequest request) {
         User user = findById(id);
@@ -0,0 +1,81 @@
+package com.smileproiz.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV (RFC 4180): запятая — разделитель, поле в кавычках может содержать запятые,
+ * переводы строк и "" вместо кавычки. В памяти только текущая запись.
+ */
+public final class CsvRecordReader {
+
+    private final BufferedReader reader;
+    private int lineNumber;      // номер последней прочитанной физической строки
+    private int recordLine;      // строка, с которой началась последняя запись
+
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+    }
+
+    // Следующая запись или null в конце файла. Пустые строки пропускаются.
+    public List<String> next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) return null;
+            lineNumber++;
+        } while (line.isBlank());
+
+        recordLine = lineNumber;
+        if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == '﻿') {
+            line = line.substring(1); // BOM из Excel
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) break;
+                // перевод строки внутри кавычек — продолжаем запись следующей строкой
+                String more = reader.readLine();
+                if (more == null) throw new IOException("Незакрытая кавычка в записи со строки " + recordLine);
+                lineNumber++;
+                field.append('\n');
+                line = more;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public int getRecordLine() {
+        return recordLine;
+    }
+}
@@ -0,0 +1,23 @@
+package com.smileproiz.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Поля товара вида "S,M,L" / "Black,White" -> список значений без пробелов и пустых элементов
+public final class CsvValues {
+
+    private CsvValues() {}
+
+    public static List<String> split(String csv) {
+        List<String> values = new ArrayList<>();
+        if (csv == null || csv.isBlank()) return values;
+
+        for (String part : csv.split(",")) {
+            String value = part.trim();
+            if (!value.isEmpty() && !values.contains(value)) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+}
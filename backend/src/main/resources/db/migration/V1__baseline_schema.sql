@@ -0,0 +1,44 @@
+-- Схема на момент перехода на миграции — как её создавал Hibernate ddl-auto=update до этого (без sku, вариантов
+-- товара и версии токенов: их добавляет V4).
+-- На уже существующей БД этот скрипт не выполняется: spring.flyway.baseline-on-migrate помечает её версией 1,
+-- и дальше применяются V2 и следующие.
+
+CREATE TABLE products (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255),
+    price       INTEGER NOT NULL,
+    image_url   VARCHAR(255),
+    category    VARCHAR(255),
+    description VARCHAR(255),
+    material    VARCHAR(255),
+    tag         VARCHAR(255),
+    in_stock    BOOLEAN,
+    size        VARCHAR(255),
+    heights     VARCHAR(255),
+    color       VARCHAR(255),
+    colors      VARCHAR(255)
+);
+
+CREATE TABLE users (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email         VARCHAR(255) NOT NULL,
+    phone         VARCHAR(30),
+    password      VARCHAR(255) NOT NULL,
+    username      VARCHAR(255) NOT NULL,
+    push_enabled  BOOLEAN,
+    fcm_token     VARCHAR(500),
+    role          VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE cart_items (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id        BIGINT  NOT NULL,
+    product_id     BIGINT  NOT NULL,
+    quantity       INTEGER NOT NULL,
+    selected_size  VARCHAR(255),
+    selected_color VARCHAR(255),
+    price          INTEGER NOT NULL,
+    CONSTRAINT fk_cart_items_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_cart_items_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
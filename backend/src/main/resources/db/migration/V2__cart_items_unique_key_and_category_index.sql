@@ -0,0 +1,28 @@
+-- Уникальный ключ строки корзины (на нём работает upsert в CartUpsertRepositoryImpl) и индекс фильтра по категории.
+-- На БД, созданных Hibernate, ключа может не быть: ddl-auto=update молча пропускал его, если уже были дубликаты.
+
+-- Дубликаты (user, product, size, color) сливаются в самую раннюю строку с суммой количества
+UPDATE cart_items c
+SET quantity = (SELECT SUM(d.quantity) FROM cart_items d
+                WHERE d.user_id = c.user_id AND d.product_id = c.product_id
+                  AND d.selected_size = c.selected_size AND d.selected_color = c.selected_color)
+WHERE EXISTS (SELECT 1 FROM cart_items d
+              WHERE d.user_id = c.user_id AND d.product_id = c.product_id
+                AND d.selected_size = c.selected_size AND d.selected_color = c.selected_color
+                AND d.id > c.id)
+  AND NOT EXISTS (SELECT 1 FROM cart_items d
+                  WHERE d.user_id = c.user_id AND d.product_id = c.product_id
+                    AND d.selected_size = c.selected_size AND d.selected_color = c.selected_color
+                    AND d.id < c.id);
+
+DELETE FROM cart_items c
+WHERE EXISTS (SELECT 1 FROM cart_items d
+              WHERE d.user_id = c.user_id AND d.product_id = c.product_id
+                AND d.selected_size = c.selected_size AND d.selected_color = c.selected_color
+                AND d.id < c.id);
+
+-- если ограничение уже создал Hibernate, индекс с этим именем есть и шаг пропускается
+CREATE UNIQUE INDEX IF NOT EXISTS uk_cart_items_user_product_size_color
+    ON cart_items (user_id, product_id, selected_size, selected_color);
+
+CREATE INDEX IF NOT EXISTS idx_products_category ON products (category);
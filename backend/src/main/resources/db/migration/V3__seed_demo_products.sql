@@ -1,3 +1,5 @@
+-- Демо-товары (раньше data.sql при каждом старте). Выполняется один раз; на БД, где они уже есть, ничего не добавит
+
 -- ✅ Добавляем товары только если такого name ещё нет
 INSERT INTO products (name, price, image_url, category, description, material, tag, in_stock, size, heights, color, colors)
 SELECT
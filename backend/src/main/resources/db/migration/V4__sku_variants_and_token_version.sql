@@ -0,0 +1,28 @@
+-- Колонки, таблица и индексы, появившиеся после перехода на миграции: sku для импорта, индексы keyset-пагинации,
+-- варианты товара, вариант в строке корзины и версия токенов пользователя.
+-- Всё через IF NOT EXISTS: на БД, которую до миграций успел обновить ddl-auto=update, часть этого уже есть.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS sku VARCHAR(64);
+-- если ограничение уже создал Hibernate, индекс с этим именем есть и шаг пропускается
+CREATE UNIQUE INDEX IF NOT EXISTS uk_products_sku ON products (sku);
+
+-- keyset-пагинация каталога (сортировка по цене / имени + id)
+CREATE INDEX IF NOT EXISTS idx_products_price_id ON products (price, id);
+CREATE INDEX IF NOT EXISTS idx_products_name_id ON products (name, id);
+
+-- строки создаются при первом чтении вариантов товара или при его сохранении (ProductVariantService)
+CREATE TABLE IF NOT EXISTS product_variants (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id BIGINT       NOT NULL,
+    size       VARCHAR(255) NOT NULL,
+    color      VARCHAR(255) NOT NULL,
+    active     BOOLEAN      NOT NULL,
+    CONSTRAINT uk_product_variants_product_size_color UNIQUE (product_id, size, color)
+);
+
+-- старые строки корзины остаются без варианта: у них есть selected_size / selected_color
+ALTER TABLE cart_items ADD COLUMN IF NOT EXISTS variant_id BIGINT;
+
+-- 🔐 все уже выданные токены — версии 0
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INTEGER;
+UPDATE users SET token_version = 0 WHERE token_version IS NULL;
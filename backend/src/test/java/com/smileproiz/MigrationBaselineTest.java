@@ -0,0 +1,87 @@
+package com.smileproiz;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// База, созданная до миграций через ddl-auto=update: baseline-on-migrate помечает её версией 1,
+// и V2+ должны довести её до текущей схемы
+class MigrationBaselineTest {
+
+    // так Hibernate создавал таблицы до перехода на миграции (имя ограничения email — сгенерированное)
+    private static final String[] HIBERNATE_SCHEMA = {
+            "CREATE TABLE products (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, name VARCHAR(255), " +
+                    "price INTEGER NOT NULL, image_url VARCHAR(255), category VARCHAR(255), description VARCHAR(255), " +
+                    "material VARCHAR(255), tag VARCHAR(255), in_stock BOOLEAN NOT NULL, size VARCHAR(255), " +
+                    "heights VARCHAR(255), color VARCHAR(255), colors VARCHAR(255))",
+            "CREATE TABLE users (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, email VARCHAR(255) NOT NULL, " +
+                    "phone VARCHAR(30), password VARCHAR(255) NOT NULL, username VARCHAR(255) NOT NULL, " +
+                    "push_enabled BOOLEAN, fcm_token VARCHAR(500), role VARCHAR(255) NOT NULL, " +
+                    "CONSTRAINT uk6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email))",
+            "CREATE TABLE cart_items (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, user_id BIGINT NOT NULL, " +
+                    "product_id BIGINT NOT NULL, quantity INTEGER NOT NULL, selected_size VARCHAR(255), " +
+                    "selected_color VARCHAR(255), price INTEGER NOT NULL, " +
+                    "FOREIGN KEY (user_id) REFERENCES users (id), FOREIGN KEY (product_id) REFERENCES products (id))",
+            "INSERT INTO users (email, password, username, role) VALUES ('old@test.local', 'x', 'old', 'user')",
+            "INSERT INTO products (name, price, in_stock) VALUES ('OLD TEE', 1000, true)",
+            "INSERT INTO cart_items (user_id, product_id, quantity, selected_size, selected_color, price) " +
+                    "VALUES (1, 1, 2, 'M', 'Black', 1000), (1, 1, 3, 'M', 'Black', 1000)"
+    };
+
+    @Test
+    void preMigrationDatabaseGetsCurrentSchema() {
+        JdbcTemplate jdbc = database("baseline_pre", HIBERNATE_SCHEMA);
+
+        assertEquals(3, migrate(jdbc.getDataSource()));
+
+        assertEquals(0, jdbc.queryForObject("SELECT token_version FROM users", Integer.class));
+        assertEquals(5, jdbc.queryForObject("SELECT SUM(quantity) FROM cart_items", Integer.class));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM cart_items", Integer.class));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM cart_items WHERE variant_id IS NOT NULL", Integer.class));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM product_variants", Integer.class));
+        assertEquals(1, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM products WHERE name = 'OLD TEE' AND sku IS NULL", Integer.class));
+        assertEquals(4, jdbc.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME IN " +
+                "('UK_PRODUCTS_SKU', 'IDX_PRODUCTS_PRICE_ID', 'IDX_PRODUCTS_NAME_ID', 'IDX_PRODUCTS_CATEGORY')", Integer.class));
+    }
+
+    @Test
+    void partlyUpdatedDatabaseIsNotBroken() {
+        // ddl-auto=update уже успел добавить sku с ключом и версию токенов
+        String[] schema = new String[HIBERNATE_SCHEMA.length + 3];
+        System.arraycopy(HIBERNATE_SCHEMA, 0, schema, 0, HIBERNATE_SCHEMA.length);
+        schema[HIBERNATE_SCHEMA.length] = "ALTER TABLE products ADD COLUMN sku VARCHAR(64)";
+        schema[HIBERNATE_SCHEMA.length + 1] = "ALTER TABLE products ADD CONSTRAINT uk_products_sku UNIQUE (sku)";
+        schema[HIBERNATE_SCHEMA.length + 2] = "ALTER TABLE users ADD COLUMN token_version INTEGER";
+        JdbcTemplate jdbc = database("baseline_partial", schema);
+
+        assertEquals(3, migrate(jdbc.getDataSource()));
+        assertEquals(0, jdbc.queryForObject("SELECT token_version FROM users", Integer.class));
+    }
+
+    private static JdbcTemplate database(String name, String[] statements) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (String sql : statements) {
+            jdbc.execute(sql);
+        }
+        return jdbc;
+    }
+
+    // те же настройки, что в application.properties
+    private static int migrate(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate()
+                .migrationsExecuted;
+    }
+}
@@ -0,0 +1,135 @@
+package com.smileproiz.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smileproiz.dto.CartSummaryDto;
+import com.smileproiz.model.Product;
+import com.smileproiz.model.User;
+import com.smileproiz.repository.CartRepository;
+import com.smileproiz.repository.UserRepository;
+import com.smileproiz.security.JwtService;
+import com.smileproiz.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Итог корзины ведётся инкрементально — после каждого изменения он должен совпадать с агрегатом по БД
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CartSummaryTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CartRepository cartRepository;
+
+    private User user;
+    private String token;
+    private final List<Long> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("summary@test.local", "x", "summary", "user"));
+        token = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole(), 0);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        cartRepository.deleteByUserId(user.getId());
+        products.forEach(productService::deleteProduct);
+        products.clear();
+        userRepository.delete(user);
+    }
+
+    @Test
+    void summaryFollowsEveryCartChange() throws Exception {
+        Long tee = add(new Product("SUMMARY TEE", 7000, null, "clothes", null, null, null, true,
+                "M", null, null, "Black")).getId();
+        Long cap = add(new Product("SUMMARY CAP", 2500, null, "accessories", null, null, null, true,
+                "M", null, null, "Black")).getId();
+
+        long teeLine = json(perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content(addBody(tee, 2))).andExpect(status().isCreated())).path("id").asLong();
+        assertSummary(1, 2, 14000);
+
+        // повторное добавление той же позиции увеличивает количество, а не число строк
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON).content(addBody(tee, 1)))
+                .andExpect(status().isCreated());
+        long capLine = json(perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content(addBody(cap, 1))).andExpect(status().isCreated())).path("id").asLong();
+        assertSummary(2, 4, 23500);
+
+        perform(put("/api/cart/update/" + teeLine).param("quantity", "5")).andExpect(status().isOk());
+        assertSummary(2, 6, 37500);
+
+        perform(delete("/api/cart/delete/" + capLine)).andExpect(status().isNoContent());
+        assertSummary(1, 5, 35000);
+
+        // количество 0 убирает строку
+        perform(put("/api/cart/update/" + teeLine).param("quantity", "0")).andExpect(status().isOk());
+        assertSummary(0, 0, 0);
+
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON).content(addBody(cap, 3)))
+                .andExpect(status().isCreated());
+        perform(delete("/api/cart/clear")).andExpect(status().isNoContent());
+        assertSummary(0, 0, 0);
+    }
+
+    private void assertSummary(long lines, long itemCount, long total) throws Exception {
+        JsonNode summary = json(perform(get("/api/cart/summary")).andExpect(status().isOk()));
+        assertEquals(lines, summary.path("lines").asLong());
+        assertEquals(itemCount, summary.path("itemCount").asLong());
+        assertEquals(total, summary.path("total").asLong());
+
+        CartSummaryDto stored = cartRepository.summarizeByUserId(user.getId());
+        assertEquals(stored.getLines(), summary.path("lines").asLong());
+        assertEquals(stored.getItemCount(), summary.path("itemCount").asLong());
+        assertEquals(stored.getTotal(), summary.path("total").asLong());
+    }
+
+    private Product add(Product product) {
+        Product saved = productService.addProduct(product);
+        products.add(saved.getId());
+        return saved;
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mvc.perform(request.header("Authorization", "Bearer " + token));
+    }
+
+    private JsonNode json(ResultActions result) throws Exception {
+        return objectMapper.readTree(result.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private static String addBody(Long productId, int quantity) {
+        return "{\"productId\":" + productId + ",\"selectedSize\":\"M\",\"selectedColor\":\"Black\",\"quantity\":" + quantity + "}";
+    }
+}
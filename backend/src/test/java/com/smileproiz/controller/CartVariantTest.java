@@ -0,0 +1,155 @@
+package com.smileproiz.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smileproiz.model.CartItem;
+import com.smileproiz.model.Product;
+import com.smileproiz.model.User;
+import com.smileproiz.repository.CartRepository;
+import com.smileproiz.repository.ProductRepository;
+import com.smileproiz.repository.ProductVariantRepository;
+import com.smileproiz.repository.UserRepository;
+import com.smileproiz.security.JwtService;
+import com.smileproiz.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Варианты товара (размер × цвет) и проверка варианта при добавлении в корзину
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CartVariantTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductVariantRepository variantRepository;
+    @Autowired
+    private CartRepository cartRepository;
+
+    private User user;
+    private String token;
+    private final List<Long> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("variants@test.local", "x", "variants", "user"));
+        token = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole(), 0);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        cartRepository.deleteByUserId(user.getId());
+        products.forEach(productService::deleteProduct);
+        products.clear();
+        userRepository.delete(user);
+    }
+
+    @Test
+    void onlyExistingVariantsCanBeAdded() throws Exception {
+        Product tee = add(new Product("VARIANT TEE", 7000, null, "clothes", null, null, null, true,
+                "S,M", null, null, "Black,White"));
+
+        JsonNode variants = json(perform(get("/api/products/" + tee.getId() + "/variants")).andExpect(status().isOk()));
+        assertEquals(4, variants.size());
+
+        // размер и цвет сравниваются без учёта регистра
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content(addBody(tee.getId(), "m", "black"))).andExpect(status().isCreated());
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content(addBody(tee.getId(), "XXL", "Black"))).andExpect(status().isBadRequest());
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productId\":" + tee.getId() + ",\"variantId\":" + variants.get(3).path("id").asLong() + "}"))
+                .andExpect(status().isCreated());
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productId\":" + tee.getId() + ",\"variantId\":-1}")).andExpect(status().isBadRequest());
+
+        List<CartItem> lines = cartRepository.findByUserId(user.getId());
+        assertEquals(2, lines.size());
+        assertTrue(lines.stream().allMatch(line -> line.getVariantId() != null));
+    }
+
+    @Test
+    void productUpdateOpensAndClosesVariants() throws Exception {
+        Product tee = add(new Product("VARIANT HOODIE", 9000, null, "clothes", null, null, null, true,
+                "M", null, "Black", null));
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content(addBody(tee.getId(), "XXL", "Black"))).andExpect(status().isBadRequest());
+
+        tee.setSize("M,XXL");
+        productService.updateProduct(tee.getId(), tee);
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content(addBody(tee.getId(), "XXL", "Black"))).andExpect(status().isCreated());
+
+        tee.setSize("XXL");
+        productService.updateProduct(tee.getId(), tee);
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content(addBody(tee.getId(), "M", "Black"))).andExpect(status().isBadRequest());
+        assertEquals(1, json(perform(get("/api/products/" + tee.getId() + "/variants"))).size());
+    }
+
+    @Test
+    void productWithoutVariantRowsGetsDefaultVariantOnFirstRead() throws Exception {
+        // как товар, созданный до появления вариантов: строк в product_variants нет
+        Product cap = productRepository.save(new Product("VARIANT CAP", 5000, null, "accessories",
+                null, null, null, true, null, null, null, null));
+        products.add(cap.getId());
+        assertEquals(0, variantRepository.findByProductId(cap.getId()).size());
+
+        JsonNode variants = json(perform(get("/api/products/" + cap.getId() + "/variants")).andExpect(status().isOk()));
+        assertEquals(1, variants.size());
+        assertEquals("Один размер", variants.get(0).path("size").asText());
+        assertEquals("Нет цвета", variants.get(0).path("color").asText());
+        assertEquals(1, variantRepository.findByProductId(cap.getId()).size());
+
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content(addBody(cap.getId(), "Один размер", "Нет цвета"))).andExpect(status().isCreated());
+    }
+
+    private Product add(Product product) {
+        Product saved = productService.addProduct(product);
+        products.add(saved.getId());
+        return saved;
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mvc.perform(request.header("Authorization", "Bearer " + token));
+    }
+
+    private JsonNode json(ResultActions result) throws Exception {
+        return objectMapper.readTree(result.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private static String addBody(Long productId, String size, String color) {
+        return "{\"productId\":" + productId + ",\"selectedSize\":\"" + size + "\",\"selectedColor\":\"" + color + "\"}";
+    }
+}
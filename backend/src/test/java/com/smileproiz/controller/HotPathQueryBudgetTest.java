@@ -0,0 +1,121 @@
+package com.smileproiz.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smileproiz.model.Product;
+import com.smileproiz.repository.CartRepository;
+import com.smileproiz.repository.ProductRepository;
+import com.smileproiz.repository.UserRepository;
+import com.smileproiz.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static com.smileproiz.support.QueryBudget.assertMaxQueries;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Регрессия по числу SQL на горячих путях: если запрос стал делать больше обращений к БД — тест падает
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class HotPathQueryBudgetTest {
+
+    private static final String EMAIL = "budget@test.local";
+    private static final String PASSWORD = "secret1";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private ProductService productService;
+
+    private String token;
+    private Long userId;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\",\"username\":\"budget\"}"))
+                .andExpect(status().isOk());
+        JsonNode login = objectMapper.readTree(login().andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        token = login.path("data").path("token").asText();
+        userId = login.path("data").path("user").path("id").asLong();
+
+        productId = productRepository.save(new Product("BUDGET TEE", 2000, null, "clothes",
+                null, null, null, true, "M", null, null, "Black")).getId();
+
+        // прогрев: версия токена пользователя и варианты товара создаются один раз
+        perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON).content(addBody()));
+        perform(get("/api/cart/summary"));
+    }
+
+    // контекст общий с другими тестами — товар и пользователь создаются заново в каждом тесте и убираются после
+    @AfterEach
+    void cleanUp() {
+        cartRepository.deleteByUserId(userId);
+        productService.deleteProduct(productId);
+        userRepository.deleteById(userId);
+    }
+
+    @Test
+    void userEndpoints() throws Exception {
+        assertMaxQueries(1, () -> login().andExpect(status().isOk()));
+        assertMaxQueries(1, () -> perform(get("/api/users/" + userId)).andExpect(status().isOk()));
+        // select + select при merge отсоединённой сущности + update
+        assertMaxQueries(3, () -> perform(put("/api/users/" + userId).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"budget2\"}")).andExpect(status().isOk()));
+    }
+
+    @Test
+    void productEndpoints() throws Exception {
+        assertMaxQueries(1, () -> perform(get("/api/products")).andExpect(status().isOk()));
+        assertMaxQueries(1, () -> perform(get("/api/products/page?limit=20")).andExpect(status().isOk()));
+        assertMaxQueries(1, () -> perform(get("/api/products/search?q=budget")).andExpect(status().isOk()));
+        assertMaxQueries(1, () -> perform(get("/api/products/filter?category=clothes")).andExpect(status().isOk()));
+        assertMaxQueries(1, () -> perform(get("/api/products/" + productId + "/variants")).andExpect(status().isOk()));
+    }
+
+    @Test
+    void cartEndpoints() throws Exception {
+        assertMaxQueries(2, () -> perform(post("/api/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content(addBody())).andExpect(status().isCreated()));
+        assertMaxQueries(1, () -> perform(get("/api/cart/all")).andExpect(status().isOk()));
+        assertMaxQueries(1, () -> perform(get("/api/cart/summary")).andExpect(status().isOk()));
+
+        Long itemId = cartRepository.findByUserId(userId).get(0).getId();
+        assertMaxQueries(2, () -> perform(put("/api/cart/update/" + itemId + "?quantity=5")).andExpect(status().isOk()));
+        assertMaxQueries(2, () -> perform(delete("/api/cart/delete/" + itemId)).andExpect(status().isNoContent()));
+        assertMaxQueries(1, () -> perform(delete("/api/cart/clear")).andExpect(status().isNoContent()));
+    }
+
+    private ResultActions login() throws Exception {
+        return mvc.perform(post("/api/users/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}"));
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mvc.perform(request.header("Authorization", "Bearer " + token));
+    }
+
+    private String addBody() {
+        return "{\"productId\":" + productId + ",\"selectedSize\":\"M\",\"selectedColor\":\"Black\"}";
+    }
+}
@@ -0,0 +1,130 @@
+package com.smileproiz.controller;
+
+import com.smileproiz.model.User;
+import com.smileproiz.repository.UserRepository;
+import com.smileproiz.security.JwtService;
+import com.smileproiz.service.ProductExportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Слот выгрузки занимается до ответа (занято — обычный 429) и возвращается после тела
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductExportTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductExportService exportService;
+
+    private User admin;
+    private String token;
+    private Semaphore slots;
+
+    @BeforeEach
+    void setUp() {
+        admin = userRepository.save(new User("export-admin@test.local", "x", "export", "admin"));
+        token = jwtService.generateToken(admin.getId(), admin.getEmail(), admin.getRole(), 0);
+        slots = (Semaphore) ReflectionTestUtils.getField(exportService, "slots");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.delete(admin);
+    }
+
+    @Test
+    void slotIsReturnedAfterExport() throws Exception {
+        int free = slots.availablePermits();
+
+        String csv = export("csv").andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertTrue(csv.startsWith("id,sku,name,price"), csv);
+        export("NDJSON").andExpect(status().isOk());
+        export("csv", "gzip").andExpect(status().isOk());
+
+        assertEquals(free, slots.availablePermits());
+    }
+
+    @Test
+    void gzipExportIsCompressed() throws Exception {
+        MockHttpServletResponse response = export("csv", "gzip, deflate").andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(csv.startsWith("id,sku,name,price"), csv);
+        }
+    }
+
+    @Test
+    void busySlotsGivePlainJson429AndNothingLeaks() throws Exception {
+        int free = slots.availablePermits();
+        slots.acquire(free);
+        try {
+            // 429 отдаётся сразу, без асинхронного тела и без заголовков выгрузки
+            String body = mvc.perform(get("/api/products/export").param("format", "csv")
+                            .header("Authorization", "Bearer " + token)
+                            .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(request().asyncNotStarted())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION))
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+            assertTrue(body.contains("Выгрузка уже выполняется"), body);
+        } finally {
+            slots.release(free);
+        }
+        assertEquals(free, slots.availablePermits());
+    }
+
+    private ResultActions export(String format) throws Exception {
+        return export(format, null);
+    }
+
+    private ResultActions export(String format, String acceptEncoding) throws Exception {
+        MockHttpServletRequestBuilder builder = get("/api/products/export").param("format", format)
+                .header("Authorization", "Bearer " + token);
+        if (acceptEncoding != null) {
+            builder.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MvcResult started = mvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(started));
+    }
+}
@@ -0,0 +1,90 @@
+package com.smileproiz.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smileproiz.repository.UserRepository;
+import com.smileproiz.security.JwtService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.security.Key;
+import java.util.Date;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 🔐 Смена пароля отзывает все выданные токены — и текущие (с tv), и старые (без uid/tv)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TokenRevocationTest {
+
+    private static final String EMAIL = "revoke@test.local";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.findByEmail(EMAIL).ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void passwordChangeRevokesCurrentAndLegacyTokens() throws Exception {
+        mvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + EMAIL + "\",\"password\":\"old-secret\",\"username\":\"revoke\"}"))
+                .andExpect(status().isOk());
+        JsonNode login = objectMapper.readTree(mvc.perform(post("/api/users/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + EMAIL + "\",\"password\":\"old-secret\"}"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        String current = login.path("data").path("token").asText();
+        long userId = login.path("data").path("user").path("id").asLong();
+        String legacy = legacyToken(EMAIL, "user");
+
+        cartWith(current).andExpect(status().isOk());
+        cartWith(legacy).andExpect(status().isOk());
+        cartWith(current + "x").andExpect(status().isUnauthorized());
+
+        mvc.perform(put("/api/users/" + userId).header("Authorization", "Bearer " + current)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"password\":\"new-secret\"}"))
+                .andExpect(status().isOk());
+
+        cartWith(current).andExpect(status().isUnauthorized());
+        cartWith(legacy).andExpect(status().isUnauthorized());
+    }
+
+    private ResultActions cartWith(String token) throws Exception {
+        return mvc.perform(get("/api/cart/all").header("Authorization", "Bearer " + token));
+    }
+
+    // Токен в формате до uid/tv в claims: только subject и роль
+    private String legacyToken(String email, String role) {
+        Key key = (Key) ReflectionTestUtils.getField(jwtService, "key");
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(email)
+                .claim(JwtService.CLAIM_ROLE, role)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + 60_000))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
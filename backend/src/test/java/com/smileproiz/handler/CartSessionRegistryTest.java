@@ -0,0 +1,82 @@
+package com.smileproiz.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smileproiz.dto.CartSummaryDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CartSessionRegistryTest {
+
+    private static final long USER = 1L;
+    private static final int UPDATES = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CartSessionRegistry registry = new CartSessionRegistry(objectMapper, new SimpleMeterRegistry());
+    private final List<Long> received = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+    private final CountDownLatch slowClient = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(registry, "coalesceMs", 1L);
+        ReflectionTestUtils.setField(registry, "sendTimeLimitMs", 10_000);
+        ReflectionTestUtils.setField(registry, "sendBufferBytes", 1 << 20);
+        ReflectionTestUtils.setField(registry, "maxSessionsPerUser", 10);
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        // клиент читает первое сообщение медленно, остальные копятся
+        doAnswer(inv -> {
+            TextMessage message = inv.getArgument(0);
+            received.add(objectMapper.readTree(message.getPayload()).path("summary").path("itemCount").asLong());
+            firstSendStarted.countDown();
+            slowClient.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+        registry.register(USER, session);
+    }
+
+    @AfterEach
+    void tearDown() {
+        slowClient.countDown();
+        registry.shutdown();
+    }
+
+    @Test
+    void updatesReachSlowClientInOrder() throws Exception {
+        for (long i = 1; i <= UPDATES; i++) {
+            registry.cleared(USER, new CartSummaryDto(0, i, 0));
+            Thread.sleep(5); // отдельная склейка на каждое изменение
+            if (i == 1) {
+                assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+            }
+        }
+        slowClient.countDown();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.size() < UPDATES && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(LongStream.rangeClosed(1, UPDATES).boxed().toList(), received);
+    }
+}
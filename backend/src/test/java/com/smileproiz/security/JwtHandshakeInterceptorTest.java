@@ -0,0 +1,83 @@
+package com.smileproiz.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtHandshakeInterceptorTest {
+
+    private final TokenAuthenticator authenticator = mock(TokenAuthenticator.class);
+    private final JwtHandshakeInterceptor interceptor = new JwtHandshakeInterceptor(authenticator);
+
+    @Test
+    void tokenIsTakenFromAuthorizationHeaderNotFromQuery() throws Exception {
+        AuthenticatedUser user = new AuthenticatedUser(1L, "ws@test.local", "user");
+        when(authenticator.authenticate(anyString())).thenReturn(Optional.empty());
+        when(authenticator.authenticate("good")).thenReturn(Optional.of(user));
+
+        MockHttpServletRequest withHeader = new MockHttpServletRequest("GET", "/ws/cart");
+        withHeader.addHeader("Authorization", "Bearer good");
+        Map<String, Object> attributes = new HashMap<>();
+        MockHttpServletResponse ok = new MockHttpServletResponse();
+        assertTrue(handshake(withHeader, ok, attributes));
+        assertEquals(user, attributes.get(JwtHandshakeInterceptor.USER_ATTRIBUTE));
+
+        // 🔐 токен в адресе не принимается
+        MockHttpServletRequest withQuery = new MockHttpServletRequest("GET", "/ws/cart");
+        withQuery.setQueryString("token=good");
+        withQuery.addParameter("token", "good");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(handshake(withQuery, rejected, new HashMap<>()));
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), rejected.getStatus());
+
+        MockHttpServletRequest badToken = new MockHttpServletRequest("GET", "/ws/cart");
+        badToken.addHeader("Authorization", "Bearer bad");
+        assertFalse(handshake(badToken, new MockHttpServletResponse(), new HashMap<>()));
+    }
+
+    @Test
+    void browserPassesTokenAsSubprotocol() throws Exception {
+        AuthenticatedUser user = new AuthenticatedUser(1L, "ws@test.local", "user");
+        when(authenticator.authenticate(anyString())).thenReturn(Optional.empty());
+        when(authenticator.authenticate("good")).thenReturn(Optional.of(user));
+
+        MockHttpServletRequest browser = new MockHttpServletRequest("GET", "/ws/cart");
+        browser.addHeader("Sec-WebSocket-Protocol", "bearer, good");
+        Map<String, Object> attributes = new HashMap<>();
+        assertTrue(handshake(browser, new MockHttpServletResponse(), attributes));
+        assertEquals(user, attributes.get(JwtHandshakeInterceptor.USER_ATTRIBUTE));
+
+        // без метки "bearer" подпротокол токеном не считается
+        MockHttpServletRequest unmarked = new MockHttpServletRequest("GET", "/ws/cart");
+        unmarked.addHeader("Sec-WebSocket-Protocol", "good");
+        assertFalse(handshake(unmarked, new MockHttpServletResponse(), new HashMap<>()));
+
+        MockHttpServletRequest markerOnly = new MockHttpServletRequest("GET", "/ws/cart");
+        markerOnly.addHeader("Sec-WebSocket-Protocol", "bearer");
+        assertFalse(handshake(markerOnly, new MockHttpServletResponse(), new HashMap<>()));
+    }
+
+    private boolean handshake(MockHttpServletRequest request, MockHttpServletResponse response,
+                              Map<String, Object> attributes) throws IOException {
+        ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+        boolean accepted = interceptor.beforeHandshake(new ServletServerHttpRequest(request), serverResponse,
+                null, attributes);
+        serverResponse.flush();
+        return accepted;
+    }
+}
@@ -0,0 +1,73 @@
+package com.smileproiz.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    // «хэширование», которое держит единственный поток пула, пока тест не отпустит
+    private final PasswordEncoder slowEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals(encode(rawPassword));
+        }
+    };
+
+    private final PasswordHashingService hashing =
+            new PasswordHashingService(slowEncoder, new SimpleMeterRegistry(), 1, 1, 5000);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        hashing.shutdown();
+    }
+
+    @Test
+    void fullPoolRejectsLoginWith429AndPasswordWritesWith503() throws Exception {
+        callers.submit(() -> hashing.encode("busy"));     // занимает поток
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> hashing.encode("queued"));   // занимает очередь
+        while (hashing.getQueued() == 0) {
+            Thread.sleep(5);
+        }
+
+        ResponseStatusException login = assertThrows(ResponseStatusException.class,
+                () -> hashing.matches("secret", "hash:secret"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, login.getStatusCode());
+
+        ResponseStatusException register = assertThrows(ResponseStatusException.class,
+                () -> hashing.encode("secret"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, register.getStatusCode());
+        assertEquals("Сервер занят, попробуйте через несколько секунд", register.getReason());
+        assertEquals(2, hashing.getRejected());
+    }
+}
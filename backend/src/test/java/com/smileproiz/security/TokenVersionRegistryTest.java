@@ -0,0 +1,40 @@
+package com.smileproiz.security;
+
+import com.smileproiz.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenVersionRegistryTest {
+
+    private final UserRepository users = mock(UserRepository.class);
+    private final TokenVersionRegistry registry = new TokenVersionRegistry(users, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "ttlMs", 50L);
+        ReflectionTestUtils.setField(registry, "maxSize", 3);
+        when(users.findTokenVersionById(anyLong())).thenReturn(Optional.of(0));
+    }
+
+    @Test
+    void cacheStaysWithinMaxSizeAndDropsExpiredEntries() throws InterruptedException {
+        for (long id = 1; id <= 10; id++) {
+            assertTrue(registry.isCurrent(id, 0));
+        }
+        assertEquals(3, registry.getCacheSize());
+
+        Thread.sleep(1100); // записи устарели, и прошла секунда с прошлой чистки
+        assertTrue(registry.isCurrent(11L, 0));
+        assertEquals(1, registry.getCacheSize());
+    }
+}
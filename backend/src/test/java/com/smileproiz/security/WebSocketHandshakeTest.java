@@ -0,0 +1,80 @@
+package com.smileproiz.security;
+
+import com.smileproiz.model.User;
+import com.smileproiz.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.net.http.WebSocketHandshakeException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Настоящее рукопожатие: браузер требует, чтобы сервер выбрал один из присланных подпротоколов
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class WebSocketHandshakeTest {
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private User user;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("ws-handshake@test.local", "x", "ws", "user"));
+        token = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole(), 0);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.delete(user);
+    }
+
+    @Test
+    void browserStyleSubprotocolTokenIsAcceptedAndBearerIsSelected() throws Exception {
+        WebSocket ws = client.newWebSocketBuilder()
+                .subprotocols(JwtHandshakeInterceptor.BEARER_PROTOCOL, token)
+                .buildAsync(uri("/ws/cart"), new WebSocket.Listener() {})
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(JwtHandshakeInterceptor.BEARER_PROTOCOL, ws.getSubprotocol());
+        ws.sendClose(WebSocket.NORMAL_CLOSURE, "").get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void authorizationHeaderStillWorksAndNoTokenIsRejected() throws Exception {
+        WebSocket ws = client.newWebSocketBuilder()
+                .header("Authorization", "Bearer " + token)
+                .buildAsync(uri("/ws/catalog"), new WebSocket.Listener() {})
+                .get(5, TimeUnit.SECONDS);
+        ws.sendClose(WebSocket.NORMAL_CLOSURE, "").get(5, TimeUnit.SECONDS);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.newWebSocketBuilder()
+                .buildAsync(uri("/ws/cart"), new WebSocket.Listener() {})
+                .get(5, TimeUnit.SECONDS));
+        assertEquals(401, assertInstanceOf(WebSocketHandshakeException.class, e.getCause())
+                .getResponse().statusCode());
+    }
+
+    private URI uri(String path) {
+        return URI.create("ws://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,146 @@
+package com.smileproiz.service;
+
+import com.smileproiz.dto.CartSummaryDto;
+import com.smileproiz.model.CartItem;
+import com.smileproiz.model.Product;
+import com.smileproiz.model.User;
+import com.smileproiz.repository.CartRepository;
+import com.smileproiz.repository.ProductRepository;
+import com.smileproiz.repository.UserRepository;
+import com.smileproiz.security.AuthenticatedUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CartServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ADDS_PER_THREAD = 25;
+
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductService productService;
+
+    private User user;
+    private Product product;
+
+    // контекст общий с другими тестами — убираем за собой и корзину, и пользователя, и товар (с вариантами)
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        if (user != null) {
+            cartRepository.deleteByUserId(user.getId());
+            userRepository.delete(user);
+        }
+        if (product != null) {
+            productService.deleteProduct(product.getId());
+        }
+    }
+
+    @Test
+    void concurrentAddsOfSameItemEndUpInOneRowWithEveryIncrement() throws Exception {
+        user = userRepository.save(new User("cart-race@test.local", "x", "race", "user"));
+        product = productRepository.save(new Product("RACE TEE", 1000, null, "clothes",
+                null, null, null, true, "M", null, null, "Black"));
+
+        race(t -> {
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                cartService.addItem(product.getId(), null, "M", "Black", 1);
+            }
+        });
+
+        List<CartItem> items = cartRepository.findByUserId(user.getId());
+        assertEquals(1, items.size());
+        assertEquals(THREADS * ADDS_PER_THREAD, items.get(0).getQuantity());
+    }
+
+    @Test
+    void concurrentUpdatesAndDeletesKeepSummaryEqualToDatabase() throws Exception {
+        user = userRepository.save(new User("cart-summary-race@test.local", "x", "race", "user"));
+        product = productRepository.save(new Product("RACE HOODIE", 1000, null, "clothes",
+                null, null, null, true, "M,L", null, null, "Black"));
+        login();
+        Long raced = cartService.addItem(product.getId(), null, "M", "Black", 1).getId();
+        cartService.addItem(product.getId(), null, "L", "Black", 1);
+        cartService.getSummary(); // итог в памяти, дальше он только сдвигается
+
+        // все читают одно и то же количество, потом пишут своё
+        race(t -> cartService.updateItemQuantity(raced, t + 2));
+        assertSummaryMatchesDatabase();
+
+        race(t -> {
+            try {
+                cartService.removeItem(raced);
+            } catch (ResponseStatusException e) {
+                assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+            }
+        });
+        assertSummaryMatchesDatabase();
+        assertEquals(1, cartService.getSummary().getLines());
+    }
+
+    private void assertSummaryMatchesDatabase() {
+        CartSummaryDto stored = cartRepository.summarizeByUserId(user.getId());
+        CartSummaryDto summary = cartService.getSummary();
+        assertEquals(stored.getLines(), summary.getLines());
+        assertEquals(stored.getItemCount(), summary.getItemCount());
+        assertEquals(stored.getTotal(), summary.getTotal());
+    }
+
+    private void login() {
+        var principal = new AuthenticatedUser(user.getId(), user.getEmail(), "user");
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                principal, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    // THREADS потоков от имени user стартуют одновременно; t — номер потока
+    private void race(IntConsumer action) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    login();
+                    start.await();
+                    action.accept(thread);
+                    SecurityContextHolder.clearContext();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
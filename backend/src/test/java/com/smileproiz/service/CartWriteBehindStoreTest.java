@@ -0,0 +1,105 @@
+package com.smileproiz.service;
+
+import com.smileproiz.model.CartItem;
+import com.smileproiz.model.Product;
+import com.smileproiz.repository.CartBatchWriteRepository.QuantityUpdate;
+import com.smileproiz.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartWriteBehindStoreTest {
+
+    private static final long USER = 1L;
+
+    private final CartRepository carts = mock(CartRepository.class);
+    private final CartWriteBehindStore store = new CartWriteBehindStore(carts);
+    private final List<Long> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "maxUsers", 100);
+        ReflectionTestUtils.setField(store, "maxAttempts", 3);
+        when(carts.findByUserId(USER)).thenReturn(List.of(item(10, 1, 2), item(11, 2, 1)));
+
+        // строка 11 не пишется никогда (как UPDATE, упавший на ограничении)
+        doAnswer(inv -> {
+            List<QuantityUpdate> updates = inv.getArgument(0);
+            if (updates.stream().anyMatch(u -> u.id() == 11L)) {
+                throw new DataIntegrityViolationException("bad row");
+            }
+            updates.forEach(u -> written.add(u.id()));
+            return null;
+        }).when(carts).batchUpdateQuantities(anyList());
+    }
+
+    @Test
+    void failingLineIsDroppedAndOthersAreWritten() {
+        store.updateQuantity(USER, 10L, 5);
+        store.updateQuantity(USER, 11L, 7);
+
+        for (int i = 0; i < 3; i++) {
+            store.flush();
+            store.updateQuantity(USER, 10L, 6 + i);
+        }
+        store.flush();
+
+        // строка 10 записывалась на каждом flush, строка 11 после трёх попыток отброшена
+        assertEquals(List.of(10L, 10L, 10L, 10L), written);
+        written.clear();
+        store.flush();
+        assertTrue(written.isEmpty());
+
+        // корзина перечитана из БД
+        store.items(USER);
+        verify(carts, times(2)).findByUserId(USER);
+    }
+
+    @Test
+    void readdingPendingDeleteRevivesLineWithoutDatabaseWrite() {
+        store.remove(USER, 10L);
+        CartItem again = store.add(USER, product(1), null, "M", "Black", 3,
+                () -> fail("строка есть в памяти — вставка не нужна"));
+
+        assertEquals(10L, again.getId());
+        assertEquals(3, again.getQuantity());
+        verify(carts, never()).batchDelete(anyList());
+
+        store.flush();
+        verify(carts, never()).batchDelete(List.of(10L));
+        assertTrue(written.contains(10L));
+    }
+
+    private static CartItem item(long id, long productId, int quantity) {
+        CartItem item = new CartItem();
+        item.setId(id);
+        item.setProduct(product(productId));
+        item.setSelectedSize("M");
+        item.setSelectedColor("Black");
+        item.setQuantity(quantity);
+        item.setPrice(1000);
+        return item;
+    }
+
+    private static Product product(long id) {
+        Product p = new Product("P" + id, 1000, null, "clothes", null, null, null, true, "M", null, null, "Black");
+        ReflectionTestUtils.setField(p, "id", id);
+        return p;
+    }
+}
@@ -0,0 +1,99 @@
+package com.smileproiz.service;
+
+import com.smileproiz.handler.CatalogSessionRegistry;
+import com.smileproiz.model.Product;
+import com.smileproiz.repository.ProductRepository;
+import com.smileproiz.service.ProductService.CatalogSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductCatalogSnapshotTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+    private final ProductVariantService variants = mock(ProductVariantService.class);
+    private final ProductService service = newService();
+
+    // то, что сейчас лежит в «БД»
+    private final List<Product> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "legacyMaxItems", 1000);
+        rows.add(product(1, "Худи"));
+        when(repository.findAllByOrderByIdAsc(any(Limit.class))).thenAnswer(inv -> List.copyOf(rows));
+        when(repository.save(any(Product.class))).thenAnswer(inv -> {
+            Product p = inv.getArgument(0);
+            ReflectionTestUtils.setField(p, "id", 2L);
+            rows.add(p);
+            return p;
+        });
+    }
+
+    @Test
+    void rebuildBetweenSaveAndPatchDoesNotDuplicateProduct() {
+        // перестройка снимка успевает прочитать уже закоммиченную строку до patchSnapshot
+        doAnswer(inv -> service.getCatalog()).when(variants).syncVariants(any(Product.class));
+
+        service.addProduct(product(0, "Футболка"));
+
+        assertEquals(List.of(1L, 2L), ids(service.getAllProducts()));
+    }
+
+    @Test
+    void sameContentGivesSameEtagOnAnotherInstance() {
+        ProductService other = newService();
+        ReflectionTestUtils.setField(other, "legacyMaxItems", 1000);
+
+        assertEquals(service.getCatalog().etag(), other.getCatalog().etag());
+    }
+
+    @Test
+    void changeOutsideThisInstanceChangesEtagOnRebuild() throws InterruptedException {
+        ReflectionTestUtils.setField(service, "cacheMaxAgeMs", 1L);
+        CatalogSnapshot before = service.getCatalog();
+        Thread.sleep(5);
+        assertEquals(before.etag(), service.getCatalog().etag());
+
+        // другой инстанс поменял цену: версия здесь не менялась, снимок перестраивается по возрасту
+        rows.set(0, product(1, "Худи"));
+        rows.get(0).setPrice(2000);
+        Thread.sleep(5);
+        CatalogSnapshot after = service.getCatalog();
+
+        assertNotEquals(before.etag(), after.etag());
+        assertTrue(after.lastModified() > before.lastModified());
+    }
+
+    private ProductService newService() {
+        return new ProductService(repository, new ProductSearchIndex(), new ProductFacetIndex(), variants,
+                mock(CatalogSessionRegistry.class), new SimpleMeterRegistry());
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    private static Product product(long id, String name) {
+        Product p = new Product();
+        if (id > 0) {
+            ReflectionTestUtils.setField(p, "id", id);
+        }
+        p.setName(name);
+        p.setPrice(1000);
+        return p;
+    }
+}
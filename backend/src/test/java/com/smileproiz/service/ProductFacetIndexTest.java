@@ -0,0 +1,80 @@
+package com.smileproiz.service;
+
+import com.smileproiz.dto.ProductFilterDto;
+import com.smileproiz.dto.ProductFilterResultDto;
+import com.smileproiz.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductFacetIndexTest {
+
+    private final ProductFacetIndex index = new ProductFacetIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                product(1, "clothes", 5000, "S,M", "Black", true),
+                product(2, "clothes", 7000, "M,L", "White", true),
+                product(3, "accessories", 3000, null, "Black", false),
+                product(4, "clothes", 7000, "L", "Black,White", true)));
+    }
+
+    @Test
+    void countsIgnoreOwnDimension() {
+        ProductFilterDto f = new ProductFilterDto();
+        f.setCategory(List.of("clothes"));
+        f.setColor(List.of("Black"));
+        ProductFilterResultDto result = index.filter(f, 0, 10);
+
+        assertEquals(List.of(1L, 4L), ids(result));
+        assertEquals(Map.of("clothes", 2, "accessories", 1), result.getFacets().get(ProductFacetIndex.CATEGORY));
+        assertEquals(Map.of("Black", 2, "White", 2), result.getFacets().get(ProductFacetIndex.COLOR));
+        assertEquals(Map.of("S", 1, "M", 1, "L", 1), result.getFacets().get(ProductFacetIndex.SIZE));
+    }
+
+    @Test
+    void countsFollowUpdateAndDelete() {
+        // товар 1 сменил категорию, цвет и наличие
+        index.index(product(1, "accessories", 5000, "S", "Red", false));
+        index.remove(4L);
+
+        ProductFilterResultDto all = index.filter(new ProductFilterDto(), 0, 10);
+        assertEquals(3, all.getTotal());
+        assertEquals(Map.of("clothes", 1, "accessories", 2), all.getFacets().get(ProductFacetIndex.CATEGORY));
+        assertEquals(Map.of("Black", 1, "White", 1, "Red", 1), all.getFacets().get(ProductFacetIndex.COLOR));
+        assertEquals(Map.of("S", 1, "M", 1, "L", 1), all.getFacets().get(ProductFacetIndex.SIZE));
+        assertEquals(Map.of("true", 1, "false", 2), all.getFacets().get(ProductFacetIndex.IN_STOCK));
+
+        ProductFilterDto black = new ProductFilterDto();
+        black.setColor(List.of("Black"));
+        assertEquals(List.of(3L), ids(index.filter(black, 0, 10)));
+    }
+
+    @Test
+    void editedProductKeepsIdOrder() {
+        index.index(product(2, "clothes", 7000, "M,L", "Green", true));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(index.filter(new ProductFilterDto(), 0, 10)));
+        assertEquals(List.of(3L, 4L), ids(index.filter(new ProductFilterDto(), 1, 2)));
+
+        ProductFilterDto byPrice = new ProductFilterDto();
+        byPrice.setSort("price");
+        assertEquals(List.of(3L, 1L, 2L, 4L), ids(index.filter(byPrice, 0, 10)));
+    }
+
+    private static List<Long> ids(ProductFilterResultDto result) {
+        return result.getItems().stream().map(Product::getId).toList();
+    }
+
+    private static Product product(long id, String category, int price, String size, String colors, boolean inStock) {
+        Product p = new Product("P" + id, price, null, category, null, null, null, inStock, size, null, null, colors);
+        ReflectionTestUtils.setField(p, "id", id);
+        return p;
+    }
+}
@@ -0,0 +1,127 @@
+package com.smileproiz.service;
+
+import com.smileproiz.dto.ProductImportResultDto;
+import com.smileproiz.dto.ProductImportResultDto.RowError;
+import com.smileproiz.model.Product;
+import com.smileproiz.model.ProductVariant;
+import com.smileproiz.repository.ProductRepository;
+import com.smileproiz.repository.ProductVariantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductImportServiceTest {
+
+    private static final List<String> SKUS = List.of("IMP-1", "IMP-2", "IMP-3", "IMP-4");
+
+    @Autowired
+    private ProductImportService importService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    // контекст общий с другими тестами — убираем импортированные товары
+    @AfterEach
+    void cleanUp() {
+        productRepository.findIdsBySku(SKUS).values().forEach(productService::deleteProduct);
+    }
+
+    @Test
+    void invalidRowsAreReportedAndSkipped() {
+        ProductImportResultDto report = csv("""
+                sku,name,price,inStock
+                IMP-1,Худи,7000,true
+                IMP-2,Футболка,дорого,true
+                IMP-3,,3000,true
+                ,Кепка,2500,true
+                IMP-4,Носки,500,может быть
+                """);
+
+        assertEquals(5, report.getRows());
+        assertEquals(1, report.getInserted());
+        assertEquals(4, report.getFailed());
+        assertEquals(List.of(3, 4, 5, 6), report.getErrors().stream().map(RowError::getLine).toList());
+        assertEquals("Цена должна быть целым числом", report.getErrors().get(0).getMessage());
+        assertEquals("IMP-2", report.getErrors().get(0).getSku());
+        assertNull(report.getReadError());
+        assertEquals(Map.of("IMP-1", id("IMP-1")), productRepository.findIdsBySku(SKUS));
+    }
+
+    @Test
+    void secondImportUpdatesBySku() {
+        ProductImportResultDto first = csv("sku,name,price,size\nIMP-1,Худи,7000,\"S,M\"\n");
+        assertEquals(1, first.getInserted());
+        Long id = id("IMP-1");
+
+        ProductImportResultDto second = csv("sku,name,price,size\nIMP-1,Худи PRO,9000,\"M,L\"\n");
+        assertEquals(0, second.getInserted());
+        assertEquals(1, second.getUpdated());
+
+        Product updated = productRepository.findById(id).orElseThrow();
+        assertEquals("Худи PRO", updated.getName());
+        assertEquals(9000, updated.getPrice());
+        assertEquals("M,L", updated.getSize());
+        // поисковый индекс обновлён по id из отчёта
+        assertTrue(productService.search("pro", 0, 50).getItems().stream().anyMatch(p -> p.getId().equals(id)));
+    }
+
+    @Test
+    void updateWritesNewVariantsToDatabase() {
+        csv("sku,name,price,size,colors\nIMP-1,Худи,7000,\"S,M\",Black\n");
+        Long id = id("IMP-1");
+        productService.getVariants(id); // строки вариантов созданы при первом чтении
+
+        csv("sku,name,price,size,colors\nIMP-1,Худи,7000,\"M,L\",Black\n");
+
+        // прямо из БД: другой инстанс или этот после рестарта увидит те же варианты
+        assertEquals(List.of("L", "M"), variantRepository.findByProductId(id).stream()
+                .filter(ProductVariant::isActive).map(ProductVariant::getSize).sorted().toList());
+    }
+
+    @Test
+    void repeatedSkuInOneFileIsInsertedThenUpdated() {
+        ProductImportResultDto report = csv("sku,name,price\nIMP-1,Худи,7000\nIMP-1,Худи,7500\n");
+
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(7500, productRepository.findById(id("IMP-1")).orElseThrow().getPrice());
+    }
+
+    @Test
+    void unreadableTailReturnsPartialReport() {
+        ProductImportResultDto report = csv("sku,name,price,description\nIMP-1,Худи,7000,ok\n"
+                + "IMP-2,Футболка,5000,\"без закрывающей кавычки\nIMP-3,Кепка,2500,ok\n");
+
+        assertEquals(1, report.getInserted());
+        assertNotNull(report.getReadError());
+        assertTrue(report.getReadError().contains("строки 3"), report.getReadError());
+        assertFalse(productRepository.findIdsBySku(SKUS).containsKey("IMP-3"));
+    }
+
+    private ProductImportResultDto csv(String body) {
+        return importService.importProducts(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                ProductImportService.FORMAT_CSV);
+    }
+
+    private Long id(String sku) {
+        return productRepository.findIdsBySku(List.of(sku)).get(sku);
+    }
+}
@@ -0,0 +1,119 @@
+package com.smileproiz.service;
+
+import com.smileproiz.dto.ProductPageDto;
+import com.smileproiz.model.Product;
+import com.smileproiz.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Курсоры /api/products/page: полный обход любой сортировки отдаёт каждый товар ровно один раз
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductPageCursorTest {
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private MockMvc mvc;
+
+    private final List<Long> created = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // два товара без названия, одинаковые названия и цены — границы страниц попадают на них
+        created.add(productService.addProduct(product(null, 3000)).getId());
+        created.add(productService.addProduct(product(null, 3000)).getId());
+        created.add(productService.addProduct(product("CURSOR TEE", 3000)).getId());
+        created.add(productService.addProduct(product("CURSOR TEE", 3000)).getId());
+        created.add(productService.addProduct(product("", 1)).getId());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        created.forEach(productService::deleteProduct);
+        created.clear();
+    }
+
+    @Test
+    void everySortReturnsEveryProductOnce() {
+        Set<Long> all = new HashSet<>();
+        productRepository.findAll().forEach(p -> all.add(p.getId()));
+
+        for (String sort : List.of("id", "price", "name")) {
+            List<Long> walked = walk(sort, 2);
+            assertEquals(all.size(), walked.size(), "повторы или пропуски при sort=" + sort);
+            assertEquals(all, new HashSet<>(walked), "sort=" + sort);
+        }
+
+        List<Long> byName = walk("name", 3);
+        assertEquals(created.subList(0, 2), byName.subList(byName.size() - 2, byName.size()),
+                "товары без названия — в конце, по id");
+    }
+
+    @Test
+    void nullAndEmptyNameCursorsDiffer() {
+        Product unnamed = productRepository.findById(created.get(0)).orElseThrow();
+        Product empty = productRepository.findById(created.get(4)).orElseThrow();
+        assertNotEquals(productService.encodeCursor("name", unnamed), productService.encodeCursor("name", empty));
+    }
+
+    @Test
+    @WithMockUser
+    void legacyListSignalsTruncation() throws Exception {
+        Object original = ReflectionTestUtils.getField(productService, "legacyMaxItems");
+        ReflectionTestUtils.setField(productService, "legacyMaxItems", (int) productRepository.count() - 1);
+        productService.afterBulkChange(List.of());
+        try {
+            mvc.perform(get("/api/products"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Catalog-Truncated", "true"))
+                    .andExpect(header().string(HttpHeaders.LINK,
+                            startsWith("</api/products/page?cursor=")));
+        } finally {
+            ReflectionTestUtils.setField(productService, "legacyMaxItems", original);
+            productService.afterBulkChange(List.of());
+        }
+
+        mvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Catalog-Truncated"));
+    }
+
+    private List<Long> walk(String sort, int limit) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductPageDto page = productService.getProductPage(sort, cursor, limit);
+            page.getItems().forEach(p -> ids.add(p.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static Product product(String name, int price) {
+        return new Product(name, price, null, "clothes", null, null, null, true, "M", null, null, "Black");
+    }
+}
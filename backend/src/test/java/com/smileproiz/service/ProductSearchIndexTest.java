@@ -0,0 +1,87 @@
+package com.smileproiz.service;
+
+import com.smileproiz.dto.ProductSearchResultDto;
+import com.smileproiz.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @BeforeEach
+    void setUp() {
+        List<Product> products = new ArrayList<>();
+        products.add(product(1, "Худи черное", "cotton", null));
+        products.add(product(2, "Футболка", "cotton", "Под худи"));
+        products.add(product(3, "Худи серое", "fleece", null));
+        products.add(product(4, "Кепка", null, null));
+        index.rebuild(products);
+    }
+
+    @Test
+    void rankingPrefersNameThenLowerId() {
+        assertEquals(List.of(1L, 3L, 2L), ids(index.search("худи", 0, 10)));
+        assertEquals(3, index.search("худи", 0, 10).getTotal());
+    }
+
+    @Test
+    void updateKeepsPositionAndReplacesTerms() {
+        index.index(product(1, "Худи белое", "cotton", null));
+
+        assertEquals(List.of(1L, 3L, 2L), ids(index.search("худи", 0, 10)));
+        assertEquals(0, index.search("черное", 0, 10).getTotal());
+        assertEquals(List.of(1L), ids(index.search("бел", 0, 10)));
+
+        // товар перестал совпадать — уходит из результата, остальные на своих местах
+        index.index(product(1, "Свитшот", "cotton", null));
+        assertEquals(List.of(3L, 2L), ids(index.search("худи", 0, 10)));
+        assertEquals(2, index.search("худи", 0, 10).getTotal());
+    }
+
+    @Test
+    void deleteRemovesFromResultsAndCounts() {
+        index.remove(3L);
+
+        assertEquals(List.of(1L, 2L), ids(index.search("худи", 0, 10)));
+        assertEquals(2, index.search("худи", 0, 10).getTotal());
+        assertEquals(List.of(2L), ids(index.search("худи", 1, 1)));
+        assertEquals(0, index.search("fleece", 0, 10).getTotal());
+    }
+
+    @Test
+    void editsDoNotGrowIndex() {
+        for (int i = 0; i < 1000; i++) {
+            index.index(product(2, "Футболка " + i, "cotton", "Под худи"));
+        }
+        assertEquals(4, index.capacity());
+
+        for (long id = 100; id < 300; id++) {
+            index.index(product(id, "Носки " + id, null, null));
+        }
+        for (long id = 100; id < 300; id++) {
+            index.remove(id);
+        }
+        // 204 номера после вставок; дыры уплотняются, как только их больше четверти (до 64 номеров не трогаются)
+        assertTrue(index.capacity() <= 64, "дыры от удалений не уплотнились: " + index.capacity());
+        assertEquals(List.of(1L, 3L, 2L), ids(index.search("худи", 0, 10)));
+        assertEquals(0, index.search("носки", 0, 10).getTotal());
+    }
+
+    private static List<Long> ids(ProductSearchResultDto result) {
+        return result.getItems().stream().map(Product::getId).toList();
+    }
+
+    static Product product(long id, String name, String material, String description) {
+        Product p = new Product(name, 1000, null, "clothes", description, material, null, true, "M", null, null, "Black");
+        ReflectionTestUtils.setField(p, "id", id);
+        return p;
+    }
+}
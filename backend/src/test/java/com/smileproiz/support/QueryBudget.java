@@ -0,0 +1,43 @@
+package com.smileproiz.support;
+
+import com.smileproiz.monitoring.SqlStats;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Бюджет SQL-запросов в тестах: действие должно уложиться в max запросов к БД.
+ * Считает всё, что прошло через пул в текущем потоке (MockMvc выполняет запрос в нём же).
+ *
+ *   QueryBudget.assertMaxQueries(2, () -> mvc.perform(get("/api/cart/all")...));
+ */
+public final class QueryBudget {
+
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws Exception;
+    }
+
+    private QueryBudget() {}
+
+    public static <T> T assertMaxQueries(int max, Action<T> action) throws Exception {
+        T result;
+        SqlStats.Scope scope = SqlStats.open();
+        try {
+            result = action.run();
+        } finally {
+            scope.close();
+        }
+        if (scope.getQueryCount() > max) {
+            throw new AssertionError("Ожидалось не больше " + max + " SQL-запросов, выполнено "
+                    + scope.getQueryCount() + ":\n" + describe(scope.statements()));
+        }
+        return result;
+    }
+
+    private static String describe(Map<String, Integer> statements) {
+        return statements.entrySet().stream()
+                .map(e -> "  " + e.getValue() + " × " + e.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.smileproiz.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void quotedFieldsKeepCommasAndEscapedQuotes() throws IOException {
+        CsvRecordReader csv = reader("sku,name,size\nHD-1,\"Худи \"\"BASIC\"\"\",\"S,M,L\"\n");
+
+        assertEquals(List.of("sku", "name", "size"), csv.next());
+        assertEquals(List.of("HD-1", "Худи \"BASIC\"", "S,M,L"), csv.next());
+        assertEquals(2, csv.getRecordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void multiLineFieldIsOneRecordAndLinesAreCounted() throws IOException {
+        CsvRecordReader csv = reader("sku,description\nA,\"первая\nвторая\"\n\nB,\n");
+
+        csv.next();
+        assertEquals(List.of("A", "первая\nвторая"), csv.next());
+        assertEquals(2, csv.getRecordLine());
+        // пустая строка пропущена, номер — физической строки файла
+        assertEquals(List.of("B", ""), csv.next());
+        assertEquals(5, csv.getRecordLine());
+    }
+
+    @Test
+    void byteOrderMarkIsDroppedFromHeader() throws IOException {
+        CsvRecordReader csv = reader("﻿sku,name\nA,B\n");
+
+        assertEquals(List.of("sku", "name"), csv.next());
+        assertEquals(List.of("A", "B"), csv.next());
+    }
+
+    @Test
+    void unclosedQuoteReportsStartLine() throws IOException {
+        CsvRecordReader csv = reader("sku,name\nA,\"не закрыта\nB,C\n");
+
+        csv.next();
+        IOException e = assertThrows(IOException.class, csv::next);
+        assertTrue(e.getMessage().contains("строки 2"), e.getMessage());
+    }
+
+    private static CsvRecordReader reader(String text) {
+        return new CsvRecordReader(new StringReader(text));
+    }
+}
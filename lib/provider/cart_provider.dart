@@ -91,7 +91,7 @@ class CartProvider extends ChangeNotifier {
       (data) {
         _resetReconnectAttempts();
         if (data is Map && data['type'] == 'cart_update') {
-          loadCart();
+          _applyCartUpdate(Map<String, dynamic>.from(data));
         }
       },
       onDone: _handleWebSocketDisconnect,
@@ -107,6 +107,49 @@ class CartProvider extends ChangeNotifier {
     Future.delayed(delay, _connectWebSocket);
   }
 
+  // ✅ сервер присылает только изменения — применяем их без повторной загрузки корзины
+  void _applyCartUpdate(Map<String, dynamic> data) {
+    if (data['cleared'] == true) {
+      _items.clear();
+      _itemMap.clear();
+    }
+
+    final removed = (data['removed'] as List?) ?? const [];
+    for (final id in removed) {
+      _items.removeWhere((e) => e.id == (id as num).toInt());
+    }
+
+    final changed = (data['items'] as List?) ?? const [];
+    for (final raw in changed) {
+      final item = Map<String, dynamic>.from(raw as Map);
+      final product = item['product'] as Map<String, dynamic>?;
+      if (product == null) continue;
+
+      final cartItem = CartItem(
+        id: (item['id'] as num).toInt(),
+        productId: (product['id'] as num).toInt(),
+        name: (product['name'] ?? '').toString(),
+        price: (product['price'] as num).toInt(),
+        imageUrl: (product['imageUrl'] ?? '').toString(),
+        selectedSize: (item['selectedSize'] ?? '').toString(),
+        selectedColor: (item['selectedColor'] ?? '').toString(),
+        quantity: (item['quantity'] as num?)?.toInt() ?? 1,
+      );
+
+      _items.removeWhere(
+        (e) => e.id == cartItem.id || e.uniqueKey == cartItem.uniqueKey,
+      );
+      _items.add(cartItem);
+    }
+
+    _itemMap
+      ..clear()
+      ..addEntries(_items.map((e) => MapEntry(e.uniqueKey, e)));
+
+    notifyListeners();
+    _saveCartLocally();
+  }
+
   void _resetReconnectAttempts() {
     _reconnectAttempts = 0;
   }
@@ -7,14 +7,22 @@ class ProductProvider extends ChangeNotifier {
 
   List<Map<String, dynamic>> get products => _products;
 
+  // ETag последнего полученного каталога: сервер ответит 304, если ничего не менялось
+  String? _etag;
+
   final String baseUrl =
       "http://localhost:8080/api/products"; // замени на свой IP/домен
 
   Future<void> fetchProducts() async {
-    final response = await http.get(Uri.parse(baseUrl));
+    final response = await http.get(
+      Uri.parse(baseUrl),
+      headers: {if (_etag != null) 'If-None-Match': _etag!},
+    );
+    if (response.statusCode == 304) return; // каталог не изменился
     if (response.statusCode == 200) {
       final List data = json.decode(response.body);
       _products = data.map((e) => Map<String, dynamic>.from(e)).toList();
+      _etag = response.headers['etag'];
       notifyListeners();
     }
   }
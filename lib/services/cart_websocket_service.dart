@@ -3,6 +3,8 @@ import 'dart:convert';
 import 'package:shared_preferences/shared_preferences.dart';
 import 'package:web_socket_channel/web_socket_channel.dart';
 
+import 'socket_connect.dart';
+
 class CartWebSocketService {
   WebSocketChannel? _channel;
 
@@ -34,8 +36,12 @@ class CartWebSocketService {
 
     final url = await _getWsUrl();
 
+    // 🔐 сервер пускает в /ws/cart только с JWT — не в адресе (адрес попадает в логи), см. socket_connect.dart
+    final prefs = await SharedPreferences.getInstance();
+    final token = prefs.getString('token') ?? '';
+
     try {
-      _channel = WebSocketChannel.connect(Uri.parse(url));
+      _channel = connectWithToken(Uri.parse(url), token);
     } catch (e) {
       print('Ошибка подключения к WS: $e');
       _attemptReconnect();
@@ -0,0 +1,6 @@
+// 🔐 Подключение к WebSocket сервера с JWT.
+// На телефоне токен уходит в заголовке Authorization, а в браузере заголовки у WebSocket не задать —
+// там он передаётся подпротоколами 'bearer', <token> (сервер принимает оба способа).
+// dart:io в веб-сборку не попадает: реализация выбирается при компиляции.
+export 'socket_connect_io.dart'
+    if (dart.library.js_interop) 'socket_connect_web.dart';
@@ -0,0 +1,5 @@
+import 'package:web_socket_channel/web_socket_channel.dart';
+
+WebSocketChannel connectWithToken(Uri uri, String token) {
+  return WebSocketChannel.connect(uri, protocols: ['bearer', token]);
+}